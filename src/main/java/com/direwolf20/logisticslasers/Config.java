@@ -13,6 +13,21 @@ public class Config {
     public static ForgeConfigSpec COMMON_CONFIG;
     public static ForgeConfigSpec CLIENT_CONFIG;
 
+    public static ForgeConfigSpec.IntValue INDEX_SCAN_SLOTS_PER_TICK;
+    public static ForgeConfigSpec.IntValue ITEM_VIEW_PAGING_THRESHOLD;
+    public static ForgeConfigSpec.IntValue CONTROLLER_BUFFER_CAPACITY;
+    public static ForgeConfigSpec.IntValue CONTROLLER_BUFFER_DRAIN_PER_TICK;
+    public static ForgeConfigSpec.IntValue CONTROLLER_BUFFER_RETRY_TICKS;
+    public static ForgeConfigSpec.IntValue LOST_STACK_BACKOFF_TICKS;
+    public static ForgeConfigSpec.IntValue LOST_STACK_MAX_BACKOFF_TICKS;
+    public static ForgeConfigSpec.IntValue LOST_STACK_QUARANTINE_BOUNCES;
+    public static ForgeConfigSpec.IntValue CAPACITY_SUMMARY_TTL;
+    public static ForgeConfigSpec.IntValue CAPACITY_SUMMARY_MIN_SLOTS;
+    public static ForgeConfigSpec.IntValue RECIPE_CACHE_SIZE;
+    public static ForgeConfigSpec.IntValue CRAFTING_PLAN_MAX_DEPTH;
+    public static ForgeConfigSpec.IntValue CRAFTING_TICK_INTERVAL;
+    public static ForgeConfigSpec.IntValue CRAFTING_MAX_JOBS;
+
     public static final String CATEGORY_RFCOSTS = "rfcosts";
     public static final String SUBCATEGORY_CONTROLLER = "rf_controller";
     public static ForgeConfigSpec.IntValue CONTROLLER_PASSIVE;
@@ -26,6 +41,9 @@ public class Config {
     public static ForgeConfigSpec.IntValue CRAFTING_STATION_REQUEST;
     public static ForgeConfigSpec.IntValue CRAFTING_STATION_PASSIVE;
 
+    public static final String CATEGORY_CLIENT = "client";
+    public static ForgeConfigSpec.IntValue PARTICLES_PER_TICK;
+
     static {
 
         COMMON_BUILDER.comment("General settings").push(CATEGORY_GENERAL);
@@ -36,12 +54,48 @@ public class Config {
         setupRFCostConfig();
         COMMON_BUILDER.pop();
 
+        CLIENT_BUILDER.comment("Client settings").push(CATEGORY_CLIENT);
+        setupClientConfig();
+        CLIENT_BUILDER.pop();
+
         COMMON_CONFIG = COMMON_BUILDER.build();
         CLIENT_CONFIG = CLIENT_BUILDER.build();
     }
 
     private static void setupGeneralConfig() {
+        INDEX_SCAN_SLOTS_PER_TICK = COMMON_BUILDER.comment("How many provider inventory slots each controller rechecks per tick, to notice items added or removed outside the network")
+                .defineInRange("index_scan_slots_per_tick", 256, 1, Integer.MAX_VALUE);
+        ITEM_VIEW_PAGING_THRESHOLD = COMMON_BUILDER.comment("Networks with more distinct items than this are searched and sorted on the server, and crafting stations only receive the page they're showing")
+                .defineInRange("item_view_paging_threshold", 2000, 0, Integer.MAX_VALUE);
+        CONTROLLER_BUFFER_CAPACITY = COMMON_BUILDER.comment("How many items the controller's internal inventory holds before extractors stop pulling items into the network. Items already travelling are always stored, so it can go over")
+                .defineInRange("controller_buffer_capacity", 100000, 0, Integer.MAX_VALUE);
+        CONTROLLER_BUFFER_DRAIN_PER_TICK = COMMON_BUILDER.comment("How many different items the controller tries to send out of its internal inventory each tick")
+                .defineInRange("controller_buffer_drain_per_tick", 8, 1, Integer.MAX_VALUE);
+        CONTROLLER_BUFFER_RETRY_TICKS = COMMON_BUILDER.comment("How long an item in the controller's internal inventory that had nowhere to go waits before trying again, unless room opens up sooner")
+                .defineInRange("controller_buffer_retry_ticks", 100, 1, Integer.MAX_VALUE);
+        LOST_STACK_BACKOFF_TICKS = COMMON_BUILDER.comment("How long items that arrived at a full inventory wait in the controller before being sent out again. Doubles every time the same items bounce")
+                .defineInRange("lost_stack_backoff_ticks", 20, 1, Integer.MAX_VALUE);
+        LOST_STACK_MAX_BACKOFF_TICKS = COMMON_BUILDER.comment("The longest items that keep bouncing off full inventories wait before being sent out again")
+                .defineInRange("lost_stack_max_backoff_ticks", 6000, 1, Integer.MAX_VALUE);
+        LOST_STACK_QUARANTINE_BOUNCES = COMMON_BUILDER.comment("After bouncing this many times, items are stored straight into the controller instead of travelling back to it, and only wake up on their backoff timer")
+                .defineInRange("lost_stack_quarantine_bounces", 4, 1, Integer.MAX_VALUE);
+        CAPACITY_SUMMARY_TTL = COMMON_BUILDER.comment("How many ticks the controller trusts its summary of a destination inventory's free space before looking at the inventory again")
+                .defineInRange("capacity_summary_ttl", 20, 1, Integer.MAX_VALUE);
+        CAPACITY_SUMMARY_MIN_SLOTS = COMMON_BUILDER.comment("Destination inventories with fewer slots than this are always checked slot by slot, as they're usually machines with slots that only take certain items")
+                .defineInRange("capacity_summary_min_slots", 9, 1, Integer.MAX_VALUE);
+        RECIPE_CACHE_SIZE = COMMON_BUILDER.comment("How many crafting grids the server remembers the recipe for, shared by all crafting stations. 0 looks every recipe up")
+                .defineInRange("recipe_cache_size", 1024, 0, Integer.MAX_VALUE);
+        CRAFTING_PLAN_MAX_DEPTH = COMMON_BUILDER.comment("How many levels of ingredients of ingredients a crafting request will craft, using the pattern modules in the network")
+                .defineInRange("crafting_plan_max_depth", 16, 1, 64);
+        CRAFTING_TICK_INTERVAL = COMMON_BUILDER.comment("How often, in ticks, the controller moves its crafting jobs along - requesting ingredients and crafting what has arrived")
+                .defineInRange("crafting_tick_interval", 10, 1, Integer.MAX_VALUE);
+        CRAFTING_MAX_JOBS = COMMON_BUILDER.comment("How many crafting jobs each controller takes on at once, counting those still being planned. Requests beyond this are turned down")
+                .defineInRange("crafting_max_jobs", 16, 1, 1024);
+    }
 
+    private static void setupClientConfig() {
+        PARTICLES_PER_TICK = CLIENT_BUILDER.comment("The maximum number of item flow particles spawned per tick, shared between all visible laser networks")
+                .defineInRange("particles_per_tick", 512, 0, Integer.MAX_VALUE);
     }
 
     private static void setupRFCostConfig() {
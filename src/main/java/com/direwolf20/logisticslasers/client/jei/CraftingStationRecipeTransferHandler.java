@@ -2,8 +2,7 @@ package com.direwolf20.logisticslasers.client.jei;
 
 import com.direwolf20.logisticslasers.common.container.CraftingStationContainer;
 import com.direwolf20.logisticslasers.common.network.PacketHandler;
-import com.direwolf20.logisticslasers.common.network.packets.PacketFilterSlot;
-import com.direwolf20.logisticslasers.common.util.ItemHandlerUtil;
+import com.direwolf20.logisticslasers.common.network.packets.PacketSetGrid;
 import mezz.jei.api.gui.IRecipeLayout;
 import mezz.jei.api.gui.ingredient.IGuiIngredient;
 import mezz.jei.api.recipe.transfer.IRecipeTransferError;
@@ -12,6 +11,8 @@ import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -25,35 +26,18 @@ public class CraftingStationRecipeTransferHandler implements IRecipeTransferHand
     @Override
     public IRecipeTransferError transferRecipe(CraftingStationContainer container, Object recipe, IRecipeLayout recipeLayout, PlayerEntity player, boolean maxTransfer, boolean doTransfer) {
         if (doTransfer) {
+            //Every item that can go in each grid slot, the server picks which one the network has most of
             Map<Integer, ? extends IGuiIngredient<ItemStack>> guiIngredients = recipeLayout.getItemStacks().getGuiIngredients();
-            boolean hasController = container.tile.hasController();
-            ItemHandlerUtil.InventoryCounts inventoryCounts = new ItemHandlerUtil.InventoryCounts();
-            if (hasController)
-                inventoryCounts = container.tile.getControllerTE().getItemCounts();
+            List<List<ItemStack>> grid = new ArrayList<>(9);
+            for (int i = 0; i < 9; i++) {
+                grid.add(Collections.emptyList()); //If theres no recipe ingredient here, clear the slot
+            }
             for (Map.Entry<Integer, ? extends IGuiIngredient<ItemStack>> entry : guiIngredients.entrySet()) {
                 int recipeSlot = entry.getKey();
-                List<ItemStack> allIngredients = entry.getValue().getAllIngredients();
-                if (!allIngredients.isEmpty()) {
-                    if (recipeSlot != 0) { // skip the output slot
-                        if (hasController) {
-                            int amt = 0;
-                            ItemStack mostStack = allIngredients.get(0);
-                            for (ItemStack stack : allIngredients) {
-                                if (inventoryCounts.getCount(stack) > amt) {
-                                    amt = inventoryCounts.getCount(stack);
-                                    mostStack = stack.copy();
-                                }
-                            }
-                            PacketHandler.sendToServer(new PacketFilterSlot(26 + recipeSlot, mostStack, mostStack.getCount()));
-                        } else {
-                            ItemStack firstIngredient = allIngredients.get(0);
-                            PacketHandler.sendToServer(new PacketFilterSlot(26 + recipeSlot, firstIngredient, firstIngredient.getCount()));
-                        }
-                    }
-                } else { //If theres no recipe ingredient here, clear the slot
-                    PacketHandler.sendToServer(new PacketFilterSlot(26 + recipeSlot, ItemStack.EMPTY, 0));
-                }
+                if (recipeSlot < 1 || recipeSlot > 9) continue; // skip the output slot
+                grid.set(recipeSlot - 1, entry.getValue().getAllIngredients());
             }
+            PacketHandler.sendToServer(new PacketSetGrid(grid));
         }
 
         return null;
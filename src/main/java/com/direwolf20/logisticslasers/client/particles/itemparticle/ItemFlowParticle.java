@@ -1,5 +1,6 @@
 package com.direwolf20.logisticslasers.client.particles.itemparticle;
 
+import com.direwolf20.logisticslasers.Config;
 import net.minecraft.block.Blocks;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.particle.BreakingParticle;
@@ -7,12 +8,19 @@ import net.minecraft.client.particle.IParticleFactory;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.vector.Vector3d;
 
 import java.util.Random;
 
 public class ItemFlowParticle extends BreakingParticle {
 
+    private static final int MAX_PARTICLES_PER_FLOW = 64; //Upper bound for a single hop, no matter how big the stack is
+    private static final double FULL_DETAIL_DISTANCE = 16; //Within this range of the player, flows get their full particle count
+    private static final double MAX_DETAIL_DISTANCE = 64; //Beyond this range of the player, flows aren't drawn at all
+    private static long budgetGameTime = -1;
+    private static int particlesThisTick = 0;
+
     private double targetX, targetY, targetZ;
     Random random = new Random();
 
@@ -61,6 +69,45 @@ public class ItemFlowParticle extends BreakingParticle {
         }
     }
 
+    /**
+     * Spawns the particles for one hop of a shipment of @param count of @param itemStack moving from @param fromPos to @param toPos.
+     * The number of particles drops off with distance from the player, and all flows share a per tick budget set in the client config.
+     */
+    public static void spawnFlow(BlockPos fromPos, BlockPos toPos, ItemStack itemStack, int count, int ticksPerBlock) {
+        Minecraft mc = Minecraft.getInstance();
+        ClientWorld world = mc.world;
+        if (world == null || mc.player == null) return;
+
+        long gameTime = world.getGameTime();
+        if (gameTime != budgetGameTime) { //New tick, new budget
+            budgetGameTime = gameTime;
+            particlesThisTick = 0;
+        }
+        int budget = Config.PARTICLES_PER_TICK.get() - particlesThisTick;
+        if (budget <= 0) return;
+
+        double x = fromPos.getX() + 0.5, y = fromPos.getY() + 0.5, z = fromPos.getZ() + 0.5;
+        double tx = toPos.getX() + 0.5, ty = toPos.getY() + 0.5, tz = toPos.getZ() + 0.5;
+        Vector3d midPoint = new Vector3d((x + tx) / 2, (y + ty) / 2, (z + tz) / 2);
+        double distance = mc.player.getPositionVec().distanceTo(midPoint);
+        if (distance >= MAX_DETAIL_DISTANCE) return;
+
+        int particles = Math.min(8 * count, MAX_PARTICLES_PER_FLOW);
+        if (distance > FULL_DETAIL_DISTANCE) //Scale down linearly between the full and max detail distances, always drawing at least one
+            particles = Math.max(1, (int) (particles * (1 - (distance - FULL_DETAIL_DISTANCE) / (MAX_DETAIL_DISTANCE - FULL_DETAIL_DISTANCE))));
+        particles = Math.min(particles, budget);
+        particlesThisTick += particles;
+
+        Random rand = world.rand;
+        for (int i = 0; i < particles; i++) {
+            //Same spread the server used to apply with spawnParticle
+            double px = x + rand.nextGaussian() * 0.1f;
+            double py = y + rand.nextGaussian() * 0.1f;
+            double pz = z + rand.nextGaussian() * 0.1f;
+            mc.particles.addEffect(new ItemFlowParticle(world, px, py, pz, tx, ty, tz, itemStack, ticksPerBlock));
+        }
+    }
+
     public static IParticleFactory<ItemFlowParticleData> FACTORY =
             (data, world, x, y, z, xSpeed, ySpeed, zSpeed) ->
                     new ItemFlowParticle(world, x, y, z, data.targetX, data.targetY, data.targetZ, data.getItemStack(), data.ticksPerBlock);
@@ -7,7 +7,6 @@ import com.direwolf20.logisticslasers.common.container.ControllerContainer;
 import com.direwolf20.logisticslasers.common.tiles.ControllerTile;
 import com.direwolf20.logisticslasers.common.util.MagicHelpers;
 import com.direwolf20.logisticslasers.common.util.MiscTools;
-import com.google.common.collect.ArrayListMultimap;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.systems.RenderSystem;
 import net.minecraft.client.Minecraft;
@@ -15,7 +14,6 @@ import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.widget.Widget;
 import net.minecraft.client.resources.I18n;
 import net.minecraft.entity.player.PlayerInventory;
-import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.text.*;
@@ -24,7 +22,6 @@ import net.minecraftforge.items.ItemHandlerHelper;
 import java.awt.Color;
 import java.util.List;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class ControllerScreen extends FEScreenBase<ControllerContainer> {
     private static final ResourceLocation background = new ResourceLocation(LogisticsLasers.MOD_ID, "textures/gui/controller.png");
@@ -36,7 +33,6 @@ public class ControllerScreen extends FEScreenBase<ControllerContainer> {
     private int availableItemsstartX;
     private int availableItemstartY;
     private int overSlot = -1;
-    private ArrayListMultimap<Item, ItemStack> itemMap;
     private ArrayList<ItemStack> itemStacks;
     private GuiIncrementer requestCounter;
     private int page = 0;
@@ -92,6 +88,16 @@ public class ControllerScreen extends FEScreenBase<ControllerContainer> {
                             )
                     ), mouseX, mouseY);
 
+        if (MiscTools.inBounds(guiLeft + 28, guiTop + 7, font.getStringWidth(I18n.format("block.logisticslasers.controllerscreen")), 9, mouseX, mouseY))
+            this.renderTooltip(stack, LanguageMap.getInstance().func_244260_a(Arrays.asList(
+                    new TranslationTextComponent("screen.logisticslasers.bouncedstacks", MagicHelpers.withSuffix(this.container.getBouncedStacks())),
+                    new TranslationTextComponent("screen.logisticslasers.requeuedstacks", MagicHelpers.withSuffix(this.container.getRequeuedStacks())),
+                    new TranslationTextComponent("screen.logisticslasers.quarantinedstacks", MagicHelpers.withSuffix(this.container.getQuarantinedStacks())),
+                    new TranslationTextComponent("screen.logisticslasers.craftingjobs", MagicHelpers.withSuffix(this.container.getCraftingJobs())),
+                    new TranslationTextComponent("screen.logisticslasers.pendingcrafts", MagicHelpers.withSuffix(this.container.getPendingCrafts()))
+                    )
+            ), mouseX, mouseY);
+
         leftButton.visible = false;
         rightButton.visible = false;
         ControllerTile controllerTile;
@@ -114,15 +120,12 @@ public class ControllerScreen extends FEScreenBase<ControllerContainer> {
         RenderSystem.colorMask(true, true, true, true);
         stack.pop();
 
-        itemMap = controllerTile.getStoredItems().getItemCounts();
-        int totalItems = itemMap.values().size();
+        itemStacks = new ArrayList<>(controllerTile.getStoredItems().getStacks());
+        int totalItems = itemStacks.size();
         int itemsPerRow = 7;
         int rows = (int) Math.ceil((double) totalItems / (double) itemsPerRow);
         int maxRows = 3;
-        itemStacks = new ArrayList(itemMap.values().stream()
-                .sorted(Comparator.comparingInt(itemstack -> itemstack.getCount()))
-                .collect(Collectors.toList())
-        );
+        itemStacks.sort(Comparator.comparingInt(itemstack -> itemstack.getCount()));
 
         if (itemStacks.isEmpty()) return;
         Collections.reverse(itemStacks);
@@ -4,13 +4,13 @@ import com.direwolf20.logisticslasers.LogisticsLasers;
 import com.direwolf20.logisticslasers.client.screens.widgets.DireButton;
 import com.direwolf20.logisticslasers.client.screens.widgets.GuiIncrementer;
 import com.direwolf20.logisticslasers.common.container.CraftingStationContainer;
-import com.direwolf20.logisticslasers.common.container.customhandler.CraftingStationHandler;
 import com.direwolf20.logisticslasers.common.container.customslot.BasicFilterSlot;
 import com.direwolf20.logisticslasers.common.container.customslot.CraftingSlot;
 import com.direwolf20.logisticslasers.common.network.PacketHandler;
 import com.direwolf20.logisticslasers.common.network.packets.*;
+import com.direwolf20.logisticslasers.common.tiles.ControllerTile;
+import com.direwolf20.logisticslasers.common.tiles.CraftingStationTile;
 import com.direwolf20.logisticslasers.common.util.*;
-import com.google.common.collect.ArrayListMultimap;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.systems.RenderSystem;
 import net.minecraft.client.Minecraft;
@@ -21,25 +21,19 @@ import net.minecraft.client.gui.widget.Widget;
 import net.minecraft.client.resources.I18n;
 import net.minecraft.client.util.InputMappings;
 import net.minecraft.entity.player.PlayerInventory;
-import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.crafting.ICraftingRecipe;
-import net.minecraft.item.crafting.IRecipeType;
-import net.minecraft.item.crafting.Ingredient;
-import net.minecraft.item.crafting.RecipeManager;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.StringTextComponent;
 import net.minecraft.util.text.TextFormatting;
 import net.minecraft.util.text.TranslationTextComponent;
-import net.minecraft.world.World;
 import net.minecraftforge.items.ItemHandlerHelper;
-import net.minecraftforge.items.ItemStackHandler;
 
+import javax.annotation.Nullable;
 import java.awt.*;
 import java.util.List;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class CraftingStationScreen extends ContainerScreen<CraftingStationContainer> {
     private static final ResourceLocation background = new ResourceLocation(LogisticsLasers.MOD_ID, "textures/gui/crafting_station.png");
@@ -54,18 +48,29 @@ public class CraftingStationScreen extends ContainerScreen<CraftingStationContai
     private int availableItemstartY;
     private int overSlot = -1;
     private int selectedSlot = -1;
-    private ArrayListMultimap<Item, ItemStack> itemMap;
-    private ArrayList<ItemStack> itemStacks;
     private GuiIncrementer requestCounter;
+    private GuiIncrementer prefetchCounter;
+    private DireButton autoExportButton;
+    private DireButton sortAllButton;
+    private DireButton cancelCraftingButton;
+    private boolean autoExport;
     private TextFieldWidget searchField;
     private int page = 0;
     private int maxPages = 0;
-    ItemStackKey selectedItem = new ItemStackKey(ItemStack.EMPTY);
-    List<ItemStack> displayStacks;
+    ItemStackKey selectedItem = ItemStackKey.of(ItemStack.EMPTY);
+    List<CraftingStationViewModel.Entry> displayEntries = Collections.emptyList();
+    private final CraftingStationViewModel viewModel;
+    private NetworkItemView.SortType sortType = NetworkItemView.SortType.COUNT;
+    //What we last asked the server for, when it's paging the network for us
+    private String lastViewSearch;
+    private NetworkItemView.SortType lastViewSortType;
+    private int lastViewPage;
+    private ResourceLocation lastViewRecipe;
 
     public CraftingStationScreen(CraftingStationContainer container, PlayerInventory playerInventory, ITextComponent title) {
         super(container, playerInventory, title);
         this.container = container;
+        this.viewModel = new CraftingStationViewModel(container);
         this.xSize = 353;
         this.ySize = 256;
     }
@@ -80,6 +85,14 @@ public class CraftingStationScreen extends ContainerScreen<CraftingStationContai
         super.render(stack, mouseX, mouseY, partialTicks);
         this.renderForeground(stack, mouseX, mouseY);
         this.renderHoveredTooltip(stack, mouseX, mouseY); // @mcp: func_230459_a_ = renderHoveredToolTip
+        if (MiscTools.inBounds(prefetchCounter.getX(), prefetchCounter.getY(), 46, 10, mouseX, mouseY))
+            this.renderTooltip(stack, new TranslationTextComponent("screen.logisticslasers.prefetch", prefetchCounter.getValue()), mouseX, mouseY);
+        if (autoExportButton.isHovered())
+            this.renderTooltip(stack, new TranslationTextComponent(autoExport ? "screen.logisticslasers.autoexport.on" : "screen.logisticslasers.autoexport.off"), mouseX, mouseY);
+        if (sortAllButton.isHovered())
+            this.renderTooltip(stack, new TranslationTextComponent("screen.logisticslasers.sortall"), mouseX, mouseY);
+        if (cancelCraftingButton.isHovered())
+            this.renderTooltip(stack, new TranslationTextComponent("screen.logisticslasers.cancelcrafting"), mouseX, mouseY);
     }
 
     public void renderForeground(MatrixStack matrixStack, int mouseX, int mouseY) {
@@ -101,49 +114,34 @@ public class CraftingStationScreen extends ContainerScreen<CraftingStationContai
             return;
         }
 
-        itemMap = container.tile.getControllerTE().getItemCounts().getItemCounts();
-        int totalItems = itemMap.values().size();
-        int itemsPerRow = 9;
-        int rows = (int) Math.ceil((double) totalItems / (double) itemsPerRow);
+        ControllerTile controller = container.tile.getControllerTE();
+        viewModel.update(controller, searchField.getText(), sortType, page, font);
+        if (controller.getItemView() != null) //The network is too big to send, so the server searches, sorts and pages it for us
+            requestItemView(viewModel.getRecipe());
+        page = viewModel.getPage();
+        maxPages = viewModel.getMaxPage();
+        drawIngredientOverlays(matrixStack);
+
         int maxRows = 9;
-        itemStacks = new ArrayList(itemMap.values().stream()
-                .sorted(Comparator.comparingInt(itemstack -> itemstack.getCount()))
-                .collect(Collectors.toList())
-        );
-        String[] searchTerms = searchField.getText().toLowerCase(Locale.ROOT).split("\\s+");
-        for (int i = 0; i < searchTerms.length; i++) {
-            String search = searchTerms[i];
-            if (search.startsWith("@")) {
-                itemStacks.removeIf(p -> !p.getItem().getCreatorModId(p).toLowerCase(Locale.ROOT).contains(search.substring(1)));
-            } else
-                itemStacks.removeIf(p -> !p.getDisplayName().getString().toLowerCase(Locale.ROOT).contains(search));
-        }
-        if (itemStacks.isEmpty()) {
+        displayEntries = viewModel.getPageEntries();
+        if (displayEntries.isEmpty()) {
             selectedSlot = -1;
             return;
         }
-        Collections.reverse(itemStacks);
-
-        int itemsPerPage = 81;
-        maxPages = (int) Math.floor((double) itemStacks.size() / itemsPerPage);
-        if (page > maxPages) page = 0;
-        int itemStackMin = (page * itemsPerPage);
-        int itemStackMax = Math.min((page * itemsPerPage) + itemsPerPage, itemStacks.size());
-        displayStacks = itemStacks.subList(itemStackMin, itemStackMax);
+
         font.drawString(matrixStack, MagicHelpers.withSuffix(page), guiLeft + 260 - font.getStringWidth(MagicHelpers.withSuffix(page)) * 0.65f, guiTop + 5, TextFormatting.DARK_GRAY.getColor());
 
         int slot = 0;
         overSlot = -1;
         selectedSlot = -1;
-        for (int i = 0; i < displayStacks.size(); i++) {
-            ItemStack stack = displayStacks.get(i);
-            ItemStackKey stackKey = new ItemStackKey(stack);
-            if (selectedItem.equals(stackKey))
+        for (int i = 0; i < displayEntries.size(); i++) {
+            CraftingStationViewModel.Entry entry = displayEntries.get(i);
+            ItemStack stack = entry.stack;
+            if (selectedItem.equals(entry.key))
                 selectedSlot = i;
             int row = (int) Math.floor((double) slot / 9);
             if (row >= maxRows) break;
             int col = slot % 9;
-            int count = stack.getCount();
             int x = availableItemsstartX + col * 18;
             int y = availableItemstartY + row * 18;
 
@@ -159,7 +157,7 @@ public class CraftingStationScreen extends ContainerScreen<CraftingStationContai
             itemRenderer.zLevel = 0;
 
 
-            font.drawStringWithShadow(matrixStack, MagicHelpers.withSuffix(count), 19 - font.getStringWidth(MagicHelpers.withSuffix(count)) * 0.65f, 18, TextFormatting.WHITE.getColor());
+            font.drawStringWithShadow(matrixStack, entry.countText, 19 - entry.countWidth * 0.65f, 18, TextFormatting.WHITE.getColor());
             matrixStack.pop();
 
             if (MiscTools.inBounds(x, y, 17, 17, mouseX, mouseY)) {
@@ -201,77 +199,40 @@ public class CraftingStationScreen extends ContainerScreen<CraftingStationContai
 
             slot++;
         }
+    }
 
-        World world = Minecraft.getInstance().world;
-        RecipeManager manager = world.getRecipeManager(); //Get the server recipe list i think
-        CraftingStationHandler craftingHandler = container.craftingHandler;
-        ICraftingRecipe recipe = manager.getRecipe(IRecipeType.CRAFTING, new CraftingStationInventory(craftingHandler, 3, 3), world).orElse(null);
-        if (recipe == null) return;
-        ItemStackHandler handler = container.handler;
-        ItemHandlerUtil.InventoryCounts inventoryCounts = new ItemHandlerUtil.InventoryCounts(handler);
-        List<ItemStack> invItemStacks = new ArrayList(inventoryCounts.getItemCounts().values());
-        List<ItemStack> tempItemMap = new ArrayList();
-        for (ItemStack tempStack : itemMap.values()) {
-            tempItemMap.add(tempStack.copy());
-        }
-        int overlayColorRed = MiscTools.rgbaToInt(255, 75, 75, 55);
-        int overlayColorYellow = MiscTools.rgbaToInt(255, 255, 0, 55);
+    /**
+     * Highlights the crafting grid slots whose ingredients have to come from the network (yellow) or can't be found (red)
+     */
+    private void drawIngredientOverlays(MatrixStack matrixStack) {
         int startX = guiLeft + 29;
         int startY = guiTop + 16;
-        List<Ingredient> ingredients = recipe.getIngredients();
-        List<Integer> slotsChecked = new ArrayList<>();
-        for (int i = 0; i < ingredients.size(); i++) {
-            Ingredient ingredient = ingredients.get(i);
-            if (ingredient.hasNoMatchingItems()) continue;
-            boolean foundItem = false;
-            for (ItemStack testStack : invItemStacks) { //Loop through all slots in internal inventory
-                if (ingredient.test(testStack) && testStack.getCount() > 0) {
-                    foundItem = true;
-                    testStack.shrink(1);
-                    break;
-                }
-            }
-            if (!foundItem) {
-                for (ItemStack testStack : tempItemMap) {
-                    if (ingredient.test(testStack) && testStack.getCount() > 0) {
-                        foundItem = true;
-                        testStack.shrink(1);
-                        RenderSystem.pushMatrix();
-                        RenderSystem.translated(0, 0, 1000);
-                        for (int j = 0; j < 9; j++) {
-                            ItemStack stackInSlot = container.craftingHandler.getStackInSlot(j);
-                            if (!stackInSlot.isEmpty() && !slotsChecked.contains(j) && ingredient.test(stackInSlot)) {
-                                int x = startX + (j % 3) * 18 + 1;
-                                int y = startY + (j / 3) * 18 + 1;
-                                fill(matrixStack, x, y, x + 16, y + 16, overlayColorYellow);
-                                slotsChecked.add(j);
-                                break;
-                            }
-                        }
-                        RenderSystem.translated(0, 0, -1000);
-                        RenderSystem.popMatrix();
-                        break;
-                    }
-                }
-                if (!foundItem) {
-                    RenderSystem.pushMatrix();
-                    RenderSystem.translated(0, 0, 1000);
-                    for (int j = 0; j < 9; j++) {
-                        ItemStack stackInSlot = container.craftingHandler.getStackInSlot(j);
-                        if (!stackInSlot.isEmpty() && !slotsChecked.contains(j) && ingredient.test(stackInSlot)) {
-                            int x = startX + (j % 3) * 18 + 1;
-                            int y = startY + (j / 3) * 18 + 1;
-                            fill(matrixStack, x, y, x + 16, y + 16, overlayColorRed);
-                            slotsChecked.add(j);
-                            break;
-                        }
-                    }
-                    RenderSystem.translated(0, 0, -1000);
-                    RenderSystem.popMatrix();
-                }
-            }
+        RenderSystem.pushMatrix();
+        RenderSystem.translated(0, 0, 1000);
+        for (int j = 0; j < 9; j++) {
+            int overlayColor = viewModel.getOverlayColor(j);
+            if (overlayColor == 0) continue;
+            int x = startX + (j % 3) * 18 + 1;
+            int y = startY + (j / 3) * 18 + 1;
+            fill(matrixStack, x, y, x + 16, y + 16, overlayColor);
         }
+        RenderSystem.translated(0, 0, -1000);
+        RenderSystem.popMatrix();
+    }
 
+    /**
+     * Asks the server for the page we're looking at, if anything about it changed since we last asked
+     */
+    private void requestItemView(@Nullable ICraftingRecipe recipe) {
+        ResourceLocation recipeId = recipe == null ? null : recipe.getId();
+        String search = searchField.getText();
+        if (search.equals(lastViewSearch) && sortType == lastViewSortType && page == lastViewPage && Objects.equals(recipeId, lastViewRecipe))
+            return;
+        lastViewSearch = search;
+        lastViewSortType = sortType;
+        lastViewPage = page;
+        lastViewRecipe = recipeId;
+        PacketHandler.sendToServer(new PacketItemViewRequest(search, sortType.ordinal(), page, recipeId));
     }
 
 
@@ -304,6 +265,11 @@ public class CraftingStationScreen extends ContainerScreen<CraftingStationContai
             if (page > 0) page--;
         }));
 
+        leftWidgets.add(new DireButton(guiLeft + 334, guiTop + 210, 15, 15, new StringTextComponent(sortType.label), (button) -> {
+            sortType = sortType.next();
+            button.setMessage(new StringTextComponent(sortType.label));
+        }));
+
         leftWidgets.add(new DireButton(guiLeft + 177, guiTop + 185, 55, 20, new TranslationTextComponent("screen.logisticslasers.refresh"), (button) -> {
             PacketHandler.sendToServer(new PacketItemCountsRefresh());
         }));
@@ -315,6 +281,33 @@ public class CraftingStationScreen extends ContainerScreen<CraftingStationContai
             requestItem();
         }));
 
+        //How many crafts' worth of ingredients the controller keeps in the station
+        prefetchCounter = new GuiIncrementer(guiLeft + 90, guiTop + 60, 0, CraftingStationTile.MAX_PREFETCH_CRAFTS, 20, 10, null);
+        prefetchCounter.setValue(container.tile.getPrefetchCrafts());
+        prefetchCounter.setOnChange(value -> PacketHandler.sendToServer(new PacketCraftingPrefetch(value)));
+        leftWidgets.add(prefetchCounter);
+
+        //Send crafted items into the network instead of onto the cursor
+        autoExport = container.tile.getAutoExport();
+        autoExportButton = new DireButton(guiLeft + 18, guiTop + 60, 10, 10, new StringTextComponent(autoExport ? "E" : "-"), (button) -> {
+            autoExport = !autoExport;
+            button.setMessage(new StringTextComponent(autoExport ? "E" : "-"));
+            PacketHandler.sendToServer(new PacketCraftingAutoExport(autoExport));
+        });
+        leftWidgets.add(autoExportButton);
+
+        //Send the whole inventory into the network, middle click a slot for just that one
+        sortAllButton = new DireButton(guiLeft + 158, guiTop + 70, 10, 10, new StringTextComponent("S"), (button) -> {
+            PacketHandler.sendToServer(new PacketSortAllFromCrafter());
+        });
+        leftWidgets.add(sortAllButton);
+
+        //Stop the controller's crafting jobs for this station
+        cancelCraftingButton = new DireButton(guiLeft + 146, guiTop + 70, 10, 10, new StringTextComponent("C"), (button) -> {
+            PacketHandler.sendToServer(new PacketCraftingCancel());
+        });
+        leftWidgets.add(cancelCraftingButton);
+
         searchField = new TextFieldWidget(font, guiLeft + 177, guiTop + 210, 155, 15, StringTextComponent.EMPTY);
         leftWidgets.add(searchField);
 
@@ -327,7 +320,7 @@ public class CraftingStationScreen extends ContainerScreen<CraftingStationContai
 
     private void requestItem() {
         if (selectedSlot == -1) return;
-        ItemStack stack = displayStacks.get(selectedSlot).copy();
+        ItemStack stack = displayEntries.get(selectedSlot).stack.copy();
         stack.setCount(requestCounter.getValue());
         PacketHandler.sendToServer(new PacketRequestItem(stack, requestCounter.getValue()));
     }
@@ -371,7 +364,7 @@ public class CraftingStationScreen extends ContainerScreen<CraftingStationContai
 
         if (overSlot >= 0) {
             //selectedSlot = overSlot;
-            selectedItem = new ItemStackKey(displayStacks.get(overSlot));
+            selectedItem = displayEntries.get(overSlot).key;
             return true;
         }
 
@@ -389,8 +382,8 @@ public class CraftingStationScreen extends ContainerScreen<CraftingStationContai
     public boolean mouseDragged(double mouseX, double mouseY, int button, double dragX, double dragY) {
         if (hoveredSlot instanceof BasicFilterSlot) {
             ItemStack stack = getMinecraft().player.inventory.getItemStack();
-            ItemStackKey heldStackKey = new ItemStackKey(stack);
-            ItemStackKey slotStackKey = new ItemStackKey(hoveredSlot.getStack());
+            ItemStackKey heldStackKey = ItemStackKey.of(stack);
+            ItemStackKey slotStackKey = ItemStackKey.of(hoveredSlot.getStack());
             if (slotStackKey.equals(heldStackKey)) return true;
             stack = stack.copy().split(hoveredSlot.getSlotStackLimit()); // Limit to slot limit
             hoveredSlot.putStack(stack); // Temporarily update the client for continuity purposes
@@ -0,0 +1,238 @@
+package com.direwolf20.logisticslasers.client.screens;
+
+import com.direwolf20.logisticslasers.common.container.CraftingStationContainer;
+import com.direwolf20.logisticslasers.common.network.packets.PacketItemViewPage;
+import com.direwolf20.logisticslasers.common.tiles.ControllerTile;
+import com.direwolf20.logisticslasers.common.util.*;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.FontRenderer;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.ICraftingRecipe;
+import net.minecraft.item.crafting.IRecipeType;
+import net.minecraft.item.crafting.Ingredient;
+import net.minecraft.world.World;
+import net.minecraftforge.items.IItemHandler;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything the CraftingStationScreen shows about the network, worked out only when something it depends on changes rather than every frame.
+ * The item list is rebuilt when the controller's item counts, the search, the sort or the page change.
+ * The recipe and ingredient overlays are rebuilt when the crafting grid, the station's inventory or the item counts change.
+ */
+public class CraftingStationViewModel {
+    public static final int OVERLAY_RED = MiscTools.rgbaToInt(255, 75, 75, 55);
+    public static final int OVERLAY_YELLOW = MiscTools.rgbaToInt(255, 255, 0, 55);
+
+    private final CraftingStationContainer container;
+
+    //What the item list was built from
+    private Object lastSource;
+    private int lastVersion;
+    private String lastSearch;
+    private NetworkItemView.SortType lastSortType;
+    private int lastPage = -1;
+    private SearchIndex<ItemStack> searchIndex = new SearchIndex<>(); //Rebuilt when the item counts change, so typing only has to search it
+    private List<ItemStack> filteredStacks = Collections.emptyList();
+    private List<Entry> pageEntries = Collections.emptyList();
+    private int page = 0;
+    private int maxPage = 0;
+
+    //What the recipe and overlays were built from
+    private final ItemStack[] gridSnapshot = new ItemStack[9];
+    private final ItemStack[] inventorySnapshot;
+    private Object lastOverlaySource;
+    private int lastOverlayVersion;
+    private ICraftingRecipe recipe;
+    private final int[] overlayColors = new int[9]; //The overlay for each crafting grid slot, 0 for none
+
+    public CraftingStationViewModel(CraftingStationContainer container) {
+        this.container = container;
+        this.inventorySnapshot = new ItemStack[container.handler.getSlots()];
+    }
+
+    /**
+     * One item in the grid of network items, with everything needed to draw it
+     */
+    public static class Entry {
+        public final ItemStack stack;
+        public final ItemStackKey key;
+        public final String countText;
+        public final int countWidth;
+
+        private Entry(ItemStack stack, FontRenderer font) {
+            this.stack = stack;
+            this.key = ItemStackKey.of(stack);
+            this.countText = MagicHelpers.withSuffix(stack.getCount());
+            this.countWidth = font.getStringWidth(countText);
+        }
+    }
+
+    /**
+     * Bring the view up to date with the @param controller, rebuilding only what's changed
+     */
+    public void update(ControllerTile controller, String search, NetworkItemView.SortType sortType, int requestedPage, FontRenderer font) {
+        PacketItemViewPage itemView = controller.getItemView();
+        Object source = itemView != null ? itemView : controller.getItemCounts();
+        int version = controller.getItemCountsVersion();
+        boolean sourceChanged = source != lastSource || version != lastVersion;
+
+        if (itemView != null) { //The server already searched, sorted and paged it for us
+            if (sourceChanged) {
+                maxPage = itemView.maxPage;
+                pageEntries = buildEntries(itemView.stacks, font);
+            }
+            page = Math.min(requestedPage, maxPage); //The entries catch up once the server answers for this page
+        } else if (sourceChanged || !search.equals(lastSearch) || sortType != lastSortType || requestedPage != lastPage) {
+            if (sourceChanged)
+                searchIndex = SearchIndex.forItems(controller.getItemCounts().getStacks());
+            if (sourceChanged || !search.equals(lastSearch) || sortType != lastSortType)
+                filteredStacks = NetworkItemView.filterAndSort(searchIndex, search, sortType);
+            maxPage = NetworkItemView.getMaxPage(filteredStacks.size());
+            page = requestedPage > maxPage ? 0 : requestedPage;
+            pageEntries = buildEntries(NetworkItemView.getPage(filteredStacks, page), font);
+        }
+        lastSource = source;
+        lastVersion = version;
+        lastSearch = search;
+        lastSortType = sortType;
+        lastPage = requestedPage;
+
+        updateOverlays(controller, source, version);
+    }
+
+    private List<Entry> buildEntries(List<ItemStack> stacks, FontRenderer font) {
+        List<Entry> entries = new ArrayList<>(stacks.size());
+        for (ItemStack stack : stacks) {
+            entries.add(new Entry(stack, font));
+        }
+        return entries;
+    }
+
+    /**
+     * Look up the recipe in the crafting grid and work out which of its ingredients would need to come from the network (yellow)
+     * or can't be found at all (red) - but only if the grid, station inventory or network contents changed since last time
+     */
+    private void updateOverlays(ControllerTile controller, Object source, int version) {
+        boolean gridChanged = updateSnapshot(gridSnapshot, container.craftingHandler);
+        boolean inventoryChanged = updateSnapshot(inventorySnapshot, container.handler);
+        if (!gridChanged && !inventoryChanged && source == lastOverlaySource && version == lastOverlayVersion)
+            return;
+        lastOverlaySource = source;
+        lastOverlayVersion = version;
+
+        if (gridChanged) {
+            World world = Minecraft.getInstance().world;
+            recipe = world.getRecipeManager().getRecipe(IRecipeType.CRAFTING, new CraftingStationInventory(container.craftingHandler, 3, 3), world).orElse(null);
+        }
+        for (int i = 0; i < overlayColors.length; i++) {
+            overlayColors[i] = 0;
+        }
+        if (recipe == null) return;
+
+        List<Ingredient> ingredients = recipe.getIngredients();
+        List<Integer> slotsChecked = new ArrayList<>();
+        PacketItemViewPage itemView = controller.getItemView();
+        if (itemView != null) { //The server already worked out where each ingredient comes from
+            if (itemView.ingredientStatus.length != Math.min(ingredients.size(), 9)) return; //Its answer was for a different recipe, wait for the next one
+            for (int i = 0; i < itemView.ingredientStatus.length; i++) {
+                Ingredient ingredient = ingredients.get(i);
+                if (ingredient.hasNoMatchingItems()) continue;
+                if (itemView.ingredientStatus[i] == PacketItemViewPage.INGREDIENT_IN_NETWORK)
+                    setOverlay(ingredient, slotsChecked, OVERLAY_YELLOW);
+                else if (itemView.ingredientStatus[i] == PacketItemViewPage.INGREDIENT_MISSING)
+                    setOverlay(ingredient, slotsChecked, OVERLAY_RED);
+            }
+            return;
+        }
+
+        ItemHandlerUtil.InventoryCounts inventoryCounts = new ItemHandlerUtil.InventoryCounts(container.handler);
+        List<ItemStack> invItemStacks = inventoryCounts.getStacks();
+        ItemHandlerUtil.InventoryCounts networkCounts = controller.getItemCounts();
+        Object2IntOpenHashMap<ItemStackKey> usedFromNetwork = new Object2IntOpenHashMap<>(); //How many of each network item earlier ingredients already counted on
+        for (Ingredient ingredient : ingredients) {
+            if (ingredient.hasNoMatchingItems()) continue;
+            boolean foundItem = false;
+            for (ItemStack testStack : invItemStacks) { //Loop through all slots in internal inventory
+                if (ingredient.test(testStack) && testStack.getCount() > 0) {
+                    foundItem = true;
+                    testStack.shrink(1);
+                    break;
+                }
+            }
+            if (foundItem) continue;
+            for (ItemStack matchingStack : ingredient.getMatchingStacks()) {
+                for (ItemStack networkStack : networkCounts.getStacks(matchingStack.getItem())) {
+                    if (!ingredient.test(networkStack)) continue;
+                    ItemStackKey networkKey = ItemStackKey.of(networkStack);
+                    if (networkStack.getCount() > usedFromNetwork.getInt(networkKey)) {
+                        usedFromNetwork.addTo(networkKey, 1);
+                        foundItem = true;
+                        break;
+                    }
+                }
+                if (foundItem) break;
+            }
+            setOverlay(ingredient, slotsChecked, foundItem ? OVERLAY_YELLOW : OVERLAY_RED);
+        }
+    }
+
+    /**
+     * Marks the first crafting grid slot holding @param ingredient that isn't already in @param slotsChecked with @param color
+     */
+    private void setOverlay(Ingredient ingredient, List<Integer> slotsChecked, int color) {
+        for (int j = 0; j < 9; j++) {
+            ItemStack stackInSlot = container.craftingHandler.getStackInSlot(j);
+            if (!stackInSlot.isEmpty() && !slotsChecked.contains(j) && ingredient.test(stackInSlot)) {
+                overlayColors[j] = color;
+                slotsChecked.add(j);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Copies anything in @param handler that differs from @param snapshot into it
+     *
+     * @return if anything changed
+     */
+    private static boolean updateSnapshot(ItemStack[] snapshot, IItemHandler handler) {
+        boolean changed = false;
+        for (int i = 0; i < snapshot.length && i < handler.getSlots(); i++) {
+            ItemStack stack = handler.getStackInSlot(i);
+            if (snapshot[i] == null || !ItemStack.areItemStacksEqual(snapshot[i], stack)) {
+                snapshot[i] = stack.copy();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public List<Entry> getPageEntries() {
+        return pageEntries;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getMaxPage() {
+        return maxPage;
+    }
+
+    @Nullable
+    public ICraftingRecipe getRecipe() {
+        return recipe;
+    }
+
+    /**
+     * @return the overlay color for crafting grid slot @param slot, or 0 for none
+     */
+    public int getOverlayColor(int slot) {
+        return overlayColors[slot];
+    }
+}
@@ -11,6 +11,7 @@ import com.direwolf20.logisticslasers.common.network.PacketHandler;
 import com.direwolf20.logisticslasers.common.network.packets.*;
 import com.direwolf20.logisticslasers.common.util.MagicHelpers;
 import com.direwolf20.logisticslasers.common.util.MiscTools;
+import com.direwolf20.logisticslasers.common.util.SearchIndex;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.systems.RenderSystem;
 import net.minecraft.client.Minecraft;
@@ -21,7 +22,10 @@ import net.minecraft.client.gui.widget.button.Button;
 import net.minecraft.client.resources.I18n;
 import net.minecraft.client.util.InputMappings;
 import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.tags.ITagCollection;
+import net.minecraft.tags.ItemTags;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.text.ITextComponent;
@@ -30,9 +34,8 @@ import net.minecraft.util.text.TextFormatting;
 import net.minecraft.util.text.TranslationTextComponent;
 
 import java.awt.*;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.*;
 
 public class TagFilterScreen extends ContainerScreen<TagFilterContainer> {
     private static final ResourceLocation background = new ResourceLocation(LogisticsLasers.MOD_ID, "textures/gui/tagfilterscreen.png");
@@ -44,6 +47,10 @@ public class TagFilterScreen extends ContainerScreen<TagFilterContainer> {
     private int selectedSlot = -1;
     List<String> displayTags;
     private boolean isWhitelist;
+    private String lastSuggestionText;
+    private List<String> suggestions;
+    private static SearchIndex<ResourceLocation> tagIndex;
+    private static ITagCollection<Item> tagIndexSource; //The tags the tagIndex was built from
 
     ItemStack card;
     public BlockPos sourceContainer;
@@ -164,9 +171,11 @@ public class TagFilterScreen extends ContainerScreen<TagFilterContainer> {
         stack.pop();
         font.drawString(stack, MagicHelpers.withSuffix(page), guiLeft + 155 - font.getStringWidth(MagicHelpers.withSuffix(page)) * 0.65f, guiTop + 5, TextFormatting.DARK_GRAY.getColor());
 
-        List<String> tags = new ArrayList<>(CardInserterTag.getTags(card));
+        boolean suggesting = !tagField.getText().isEmpty(); //While typing, show the known tags that match instead of the card's tags
+        List<String> tags = suggesting ? getTagSuggestions(tagField.getText()) : new ArrayList<>(CardInserterTag.getTags(card));
         int tagsPerPage = 11;
         maxPages = (int) Math.floor((double) tags.size() / tagsPerPage);
+        if (page > maxPages) page = 0;
         int itemStackMin = (page * tagsPerPage);
         int itemStackMax = Math.min((page * tagsPerPage) + tagsPerPage, tags.size());
         displayTags = tags.subList(itemStackMin, itemStackMax);
@@ -175,7 +184,7 @@ public class TagFilterScreen extends ContainerScreen<TagFilterContainer> {
         int slot = 0;
         overSlot = -1;
         for (String tag : displayTags) {
-            Minecraft.getInstance().fontRenderer.drawString(stack, tag, availableItemsstartX, tagStartY, Color.BLUE.getRGB());
+            Minecraft.getInstance().fontRenderer.drawString(stack, tag, availableItemsstartX, tagStartY, suggesting ? Color.DARK_GRAY.getRGB() : Color.BLUE.getRGB());
             //int x = availableItemsstartX;
             //int y = availableItemstartY + row * 18;
 
@@ -192,7 +201,7 @@ public class TagFilterScreen extends ContainerScreen<TagFilterContainer> {
                 stack.pop();
             }
 
-            if (slot == selectedSlot) {
+            if (slot == selectedSlot && !suggesting) {
                 color = 0xFFFF0000;
 
                 stack.push();
@@ -216,6 +225,41 @@ public class TagFilterScreen extends ContainerScreen<TagFilterContainer> {
         }
     }
 
+    /**
+     * @return the item tags whose ids have words starting with each word in @param text, cached until the text changes
+     */
+    private List<String> getTagSuggestions(String text) {
+        if (text.equals(lastSuggestionText))
+            return suggestions;
+        StringBuilder query = new StringBuilder();
+        for (String term : SearchIndex.getTerms(text)) {
+            query.append('#').append(term).append(' ');
+        }
+        suggestions = new ArrayList<>();
+        for (ResourceLocation tag : getTagIndex().search(query.toString())) {
+            suggestions.add(tag.toString());
+        }
+        lastSuggestionText = text;
+        return suggestions;
+    }
+
+    /**
+     * @return a search index over every item tag, rebuilt when the tags are reloaded
+     */
+    private static SearchIndex<ResourceLocation> getTagIndex() {
+        ITagCollection<Item> tagCollection = ItemTags.getCollection();
+        if (tagIndex == null || tagIndexSource != tagCollection) {
+            List<ResourceLocation> tagIds = new ArrayList<>(tagCollection.getRegisteredTags());
+            tagIds.sort(Comparator.comparing(ResourceLocation::toString));
+            tagIndex = new SearchIndex<>();
+            for (ResourceLocation tagId : tagIds) {
+                tagIndex.add(tagId, tagId.toString(), tagId.getNamespace(), Collections.singleton(tagId));
+            }
+            tagIndexSource = tagCollection;
+        }
+        return tagIndex;
+    }
+
     /*@Override
     public void renderBackground(MatrixStack stack) {
         RenderSystem.color4f(1, 1, 1, 1);
@@ -259,6 +303,11 @@ public class TagFilterScreen extends ContainerScreen<TagFilterContainer> {
         if (MiscTools.inBounds(tagField.x, tagField.y, tagField.getWidth(), 15, mouseX, mouseY) && button == 1)
             tagField.setText("");
 
+        if (overSlot >= 0 && !tagField.getText().isEmpty()) { //Picking a suggestion fills it in, ready to add
+            tagField.setText(displayTags.get(overSlot));
+            return true;
+        }
+
         if (overSlot >= 0) {
             selectedSlot = overSlot;
             //tagField.setText(displayTags.get(selectedSlot));
@@ -144,6 +144,10 @@ public class GuiIncrementer extends Widget {
         return y;
     }
 
+    public void setOnChange(@Nullable IIncrementerChanged onChange) {
+        this.onChange = onChange;
+    }
+
     public interface IIncrementerChanged {
         void onChange(int value);
     }
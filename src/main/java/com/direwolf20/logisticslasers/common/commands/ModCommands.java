@@ -0,0 +1,32 @@
+package com.direwolf20.logisticslasers.common.commands;
+
+import com.direwolf20.logisticslasers.LogisticsLasers;
+import com.direwolf20.logisticslasers.common.util.ItemHandlerBenchmark;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.util.text.TranslationTextComponent;
+
+public class ModCommands {
+    private static final int DEFAULT_PASSES = 100000;
+
+    public static void register(CommandDispatcher<CommandSource> dispatcher) {
+        dispatcher.register(Commands.literal(LogisticsLasers.MOD_ID)
+                .then(Commands.literal("benchmark")
+                        .requires(source -> source.hasPermissionLevel(2))
+                        .executes(context -> benchmark(context.getSource(), DEFAULT_PASSES))
+                        .then(Commands.argument("passes", IntegerArgumentType.integer(1, 10000000))
+                                .executes(context -> benchmark(context.getSource(), IntegerArgumentType.getInteger(context, "passes"))))));
+    }
+
+    /**
+     * Time ItemHandlerAdapter's direct paths against the generic ones, see ItemHandlerBenchmark, and tell @param source how it went
+     */
+    private static int benchmark(CommandSource source, int passes) {
+        for (ItemHandlerBenchmark.Result result : ItemHandlerBenchmark.run(passes)) {
+            source.sendFeedback(new TranslationTextComponent("message.logisticslasers.benchmark", result.name, result.directNanos, result.genericNanos, String.format("%.1f", result.getSpeedup())), false);
+        }
+        return 1;
+    }
+}
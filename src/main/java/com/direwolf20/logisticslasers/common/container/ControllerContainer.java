@@ -15,7 +15,7 @@ import javax.annotation.Nullable;
 
 public class ControllerContainer extends FEContainerBase {
     public ControllerContainer(int windowId, PlayerInventory playerInventory, PacketBuffer extraData) {
-        this((ControllerTile) playerInventory.player.world.getTileEntity(extraData.readBlockPos()), new IntArray(3), windowId, playerInventory);
+        this((ControllerTile) playerInventory.player.world.getTileEntity(extraData.readBlockPos()), new IntArray(8), windowId, playerInventory);
     }
 
     public ControllerContainer(@Nullable ControllerTile tile, IIntArray data, int windowId, PlayerInventory playerInventory) {
@@ -42,4 +42,24 @@ public class ControllerContainer extends FEContainerBase {
     public int getRFCost() {
         return this.data.get(2);
     }
+
+    public int getBouncedStacks() {
+        return this.data.get(3);
+    }
+
+    public int getRequeuedStacks() {
+        return this.data.get(4);
+    }
+
+    public int getQuarantinedStacks() {
+        return this.data.get(5);
+    }
+
+    public int getCraftingJobs() {
+        return this.data.get(6);
+    }
+
+    public int getPendingCrafts() {
+        return this.data.get(7);
+    }
 }
@@ -40,7 +40,7 @@ public class CraftingStationContainer extends Container {
         this.setup(playerInventory);
         tile.calcResult();
         if (playerInventory.player instanceof ServerPlayerEntity && tile.getControllerTE() != null) {
-            tile.getControllerTE().updateItemCounts((ServerPlayerEntity) playerInventory.player);
+            tile.getControllerTE().updateItemCounts((ServerPlayerEntity) playerInventory.player, true); //The client may have nothing, or an old copy from a previous visit
             tile.markDirtyClient();
         }
     }
@@ -1,8 +1,11 @@
 package com.direwolf20.logisticslasers.common.container.customhandler;
 
 import com.direwolf20.logisticslasers.common.tiles.CraftingStationTile;
+import net.minecraft.item.ItemStack;
 import net.minecraftforge.items.ItemStackHandler;
 
+import java.util.List;
+
 public class CraftingStationHandler extends ItemStackHandler {
     CraftingStationTile tile;
 
@@ -15,6 +18,16 @@ public class CraftingStationHandler extends ItemStackHandler {
         this.tile = tile;
     }
 
+    /**
+     * Replace the whole grid with @param newStacks, looking the recipe up once at the end rather than once per slot
+     */
+    public void setAllStacks(List<ItemStack> newStacks) {
+        for (int i = 0; i < getSlots(); i++) {
+            stacks.set(i, i < newStacks.size() ? newStacks.get(i) : ItemStack.EMPTY);
+        }
+        onContentsChanged(0);
+    }
+
     @Override
     protected void onContentsChanged(int slot) {
         if (tile == null) return;
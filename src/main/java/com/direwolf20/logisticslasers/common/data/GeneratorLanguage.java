@@ -30,6 +30,7 @@ public class GeneratorLanguage extends LanguageProvider {
         addItem(ModItems.CARD_STOCKER, "Stocking Module");
         addItem(ModItems.CARD_PROVIDER, "Provider Module");
         addItem(ModItems.CARD_POLYMORPH, "Polymorph Module");
+        addItem(ModItems.CARD_PATTERN, "Pattern Module");
 
         add("block.logisticslasers.controllerscreen", "Laser Controller");
         add("block.logisticslasers.craftingstationscreen", "Crafting Station");
@@ -41,6 +42,7 @@ public class GeneratorLanguage extends LanguageProvider {
         add("itemGroup.logisticslasers", "Logistics Lasers");
 
         add("item.logisticslasers.basicfilterscreen.priority", "Priority: %d");
+        add("item.logisticslasers.card_pattern.output", "Crafts: %s %s");
 
         add("screen.logisticslasers.energy", "Energy: %s/%s FE");
         add("screen.logisticslasers.fepertick", "FE/T: %s FE");
@@ -55,6 +57,16 @@ public class GeneratorLanguage extends LanguageProvider {
         add("screen.logisticslasers.whitelist", "Whitelist");
         add("screen.logisticslasers.blacklist", "Blacklist");
         add("screen.logisticslasers.extractamt", "Extract");
+        add("screen.logisticslasers.bouncedstacks", "Bounced stacks: %s");
+        add("screen.logisticslasers.requeuedstacks", "Requeued stacks: %s");
+        add("screen.logisticslasers.quarantinedstacks", "Quarantined items: %s");
+        add("screen.logisticslasers.craftingjobs", "Crafting jobs: %s");
+        add("screen.logisticslasers.pendingcrafts", "Crafts pending: %s");
+        add("screen.logisticslasers.prefetch", "Keep ingredients in stock for %s crafts (0 = off)");
+        add("screen.logisticslasers.autoexport.on", "Crafted items go into the network");
+        add("screen.logisticslasers.autoexport.off", "Crafted items go to you");
+        add("screen.logisticslasers.sortall", "Send everything in the inventory into the network");
+        add("screen.logisticslasers.cancelcrafting", "Stop crafting everything requested for this station");
 
 
         add("block.logisticslasers.inventorynodescreen", "Inventory Node");
@@ -64,6 +76,18 @@ public class GeneratorLanguage extends LanguageProvider {
         add("message.logisticslasers.connectionfailed", "Connection failed to: %d");
         add("message.logisticslasers.failedRequest", "Failed to request %d %d");
         add("message.logisticslasers.wrenchrange", "Connection exceeds maximum range of %d");
+        add("message.logisticslasers.benchmark", "%s: direct %s ns, generic %s ns per pass (%sx faster)");
+        add("message.logisticslasers.patternempty", "No recipe in the crafting grid");
+        add("message.logisticslasers.patternsaved", "Pattern saved: %s %s");
+        add("message.logisticslasers.craftingqueued", "Crafting %s %s (%s crafts)");
+        add("message.logisticslasers.craftingmissing", "Can't craft - missing %s %s");
+        add("message.logisticslasers.craftingdone", "Finished crafting %s %s");
+        add("message.logisticslasers.craftingqueuefull", "Can't craft %s %s - the controller has too many crafting jobs");
+        add("message.logisticslasers.craftingfailed", "Couldn't plan crafting %s %s");
+        add("message.logisticslasers.craftingcancelled", "Stopped crafting %s %s");
+        add("message.logisticslasers.craftingnonetocancel", "Nothing is being crafted for this station");
+        add("message.logisticslasers.sortedall", "Sent %s items (%s kinds) into the network");
+        add("message.logisticslasers.sortedallpartial", "Sent %s items (%s kinds) into the network, %s had nowhere to go");
 
     }
 }
@@ -38,6 +38,11 @@ public class GeneratorRecipes extends RecipeProvider {
                 .addIngredient(CARD_BLANK.get())
                 .addCriterion("has_card_blank", hasItem(CARD_BLANK.get()))
                 .build(consumer);
+        ShapelessRecipeBuilder.shapelessRecipe(CARD_PATTERN.get())
+                .addIngredient(Items.CRAFTING_TABLE)
+                .addIngredient(CARD_BLANK.get())
+                .addCriterion("has_card_blank", hasItem(CARD_BLANK.get()))
+                .build(consumer);
         ShapedRecipeBuilder.shapedRecipe(CARD_INSERTER.get())
                 .key('g', Tags.Items.GLASS_PANES)
                 .key('b', CARD_BLANK.get())
@@ -181,6 +186,10 @@ public class GeneratorRecipes extends RecipeProvider {
                 .addIngredient(CARD_INSERTER_TAG.get())
                 .addCriterion("has_card_blank", hasItem(CARD_BLANK.get()))
                 .build(consumer, CARD_INSERTER_TAG.getId() + "_nbtclear");
+        ShapelessRecipeBuilder.shapelessRecipe(CARD_PATTERN.get())
+                .addIngredient(CARD_PATTERN.get())
+                .addCriterion("has_card_blank", hasItem(CARD_BLANK.get()))
+                .build(consumer, CARD_PATTERN.getId() + "_nbtclear");
 
     }
 
@@ -0,0 +1,42 @@
+package com.direwolf20.logisticslasers.common.events;
+
+import com.direwolf20.logisticslasers.LogisticsLasers;
+import com.direwolf20.logisticslasers.common.commands.ModCommands;
+import com.direwolf20.logisticslasers.common.util.ChunkWaitTracker;
+import com.direwolf20.logisticslasers.common.util.IngredientCache;
+import com.direwolf20.logisticslasers.common.util.RecipeCache;
+import net.minecraft.resources.IResourceManagerReloadListener;
+import net.minecraft.world.World;
+import net.minecraftforge.event.AddReloadListenerEvent;
+import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+
+@Mod.EventBusSubscriber(modid = LogisticsLasers.MOD_ID)
+public class ServerEvents {
+    @SubscribeEvent
+    public static void onChunkLoad(ChunkEvent.Load event) {
+        if (!(event.getWorld() instanceof World) || event.getWorld().isRemote()) return;
+        ChunkWaitTracker.chunkLoaded(((World) event.getWorld()).getDimensionKey(), event.getChunk().getPos().asLong());
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        ChunkWaitTracker.clear();
+    }
+
+    @SubscribeEvent
+    public static void onRegisterCommands(RegisterCommandsEvent event) {
+        ModCommands.register(event.getDispatcher());
+    }
+
+    @SubscribeEvent
+    public static void onAddReloadListeners(AddReloadListenerEvent event) {
+        event.addListener((IResourceManagerReloadListener) resourceManager -> { //Recipes and tags are about to change
+            RecipeCache.clear();
+            IngredientCache.clear();
+        });
+    }
+}
@@ -34,4 +34,5 @@ public class ModItems {
     public static final RegistryObject<Item> CARD_POLYMORPH = BASICITEMS.register("card_polymorph", CardPolymorph::new);
     public static final RegistryObject<Item> CARD_PROVIDER = BASICITEMS.register("card_provider", CardProvider::new);
     public static final RegistryObject<Item> CARD_STOCKER = BASICITEMS.register("card_stocker", CardStocker::new);
+    public static final RegistryObject<Item> CARD_PATTERN = BASICITEMS.register("card_pattern", CardPattern::new);
 }
@@ -0,0 +1,103 @@
+package com.direwolf20.logisticslasers.common.items.logiccards;
+
+import com.direwolf20.logisticslasers.common.tiles.CraftingStationTile;
+import com.direwolf20.logisticslasers.common.util.ItemHandlerUtil;
+import net.minecraft.client.util.ITooltipFlag;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.ItemUseContext;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.ActionResult;
+import net.minecraft.util.ActionResultType;
+import net.minecraft.util.Hand;
+import net.minecraft.util.text.ITextComponent;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.World;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemStackHandler;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Remembers a crafting recipe - the 3x3 grid of a crafting station - so the controller can craft its output on demand.
+ * Sneak-right-click a crafting station to copy its grid onto the card, then put the card in any inventory node on the network.
+ */
+public class CardPattern extends BaseCard {
+
+    public CardPattern() {
+        super();
+        CARDTYPE = CardType.CRAFT;
+    }
+
+    @Override
+    public ActionResult<ItemStack> onItemRightClick(World world, PlayerEntity player, Hand hand) {
+        return new ActionResult<>(ActionResultType.PASS, player.getHeldItem(hand)); //No filter to edit
+    }
+
+    @Override
+    public ActionResultType onItemUse(ItemUseContext context) {
+        World world = context.getWorld();
+        PlayerEntity player = context.getPlayer();
+        TileEntity te = world.getTileEntity(context.getPos());
+        if (player == null || !player.isSneaking() || !(te instanceof CraftingStationTile))
+            return ActionResultType.PASS;
+        if (world.isRemote)
+            return ActionResultType.SUCCESS;
+
+        CraftingStationTile station = (CraftingStationTile) te;
+        station.calcResult();
+        if (station.lastRecipe == null) {
+            player.sendStatusMessage(new TranslationTextComponent("message.logisticslasers.patternempty"), true);
+            return ActionResultType.FAIL;
+        }
+        ItemStack output = station.lastRecipe.getCraftingResult(station.craftMatrix);
+        setPattern(context.getItem(), station.craftMatrixHandler, output);
+        player.sendStatusMessage(new TranslationTextComponent("message.logisticslasers.patternsaved", output.getCount(), output.getDisplayName()), true);
+        return ActionResultType.SUCCESS;
+    }
+
+    @Override
+    @OnlyIn(Dist.CLIENT)
+    public void addInformation(ItemStack stack, @Nullable World world, List<ITextComponent> tooltip, ITooltipFlag flag) {
+        super.addInformation(stack, world, tooltip, flag);
+        ItemStack output = getOutput(stack);
+        if (!output.isEmpty())
+            tooltip.add(new TranslationTextComponent("item.logisticslasers.card_pattern.output", output.getCount(), output.getDisplayName()));
+    }
+
+    /**
+     * Store one of each item in the crafting @param grid on @param card, which makes @param output
+     */
+    public static void setPattern(ItemStack card, IItemHandler grid, ItemStack output) {
+        ItemStackHandler pattern = new ItemStackHandler(9);
+        for (int i = 0; i < pattern.getSlots() && i < grid.getSlots(); i++) {
+            pattern.setStackInSlot(i, ItemHandlerUtil.size(grid.getStackInSlot(i), 1));
+        }
+        card.getOrCreateTag().put("pattern", pattern.serializeNBT());
+        card.getOrCreateTag().put("output", output.write(new CompoundNBT()));
+    }
+
+    /**
+     * @return the 3x3 crafting grid stored on @param card, empty if it has none
+     */
+    public static ItemStackHandler getPattern(ItemStack card) {
+        ItemStackHandler pattern = new ItemStackHandler(9);
+        CompoundNBT compound = card.getTag();
+        if (compound != null && compound.contains("pattern"))
+            pattern.deserializeNBT(compound.getCompound("pattern"));
+        return pattern;
+    }
+
+    /**
+     * @return what the pattern on @param card made when it was stored, for display - the recipe itself decides what's actually crafted
+     */
+    public static ItemStack getOutput(ItemStack card) {
+        CompoundNBT compound = card.getTag();
+        if (compound == null || !compound.contains("output")) return ItemStack.EMPTY;
+        return ItemStack.read(compound.getCompound("output"));
+    }
+}
@@ -68,7 +68,7 @@ public class CardPolymorph extends CardInserter {
         if (handler == null)
             return new ArrayList<>();
         ItemHandlerUtil.InventoryCounts inventoryCounts = new ItemHandlerUtil.InventoryCounts(handler);
-        ArrayList<ItemStack> itemStacks = new ArrayList<>(inventoryCounts.getItemCounts().values());
+        ArrayList<ItemStack> itemStacks = new ArrayList<>(inventoryCounts.getStacks());
         ListNBT list = new ListNBT();
         for (ItemStack itemStack : itemStacks) {
             CompoundNBT tag = new CompoundNBT();
@@ -85,7 +85,7 @@ public class CardPolymorph extends CardInserter {
         if (handler == null)
             return;
         ItemHandlerUtil.InventoryCounts inventoryCounts = new ItemHandlerUtil.InventoryCounts(handler);
-        ArrayList<ItemStack> handlerItemStacks = new ArrayList<>(inventoryCounts.getItemCounts().values());
+        ArrayList<ItemStack> handlerItemStacks = new ArrayList<>(inventoryCounts.getStacks());
         CompoundNBT compound = stack.getOrCreateTag();
         ListNBT nbtList = compound.getList("inv", Constants.NBT.TAG_COMPOUND);
         ItemHandlerUtil.InventoryCounts cardCounts = new ItemHandlerUtil.InventoryCounts(nbtList);
@@ -109,6 +109,6 @@ public class CardPolymorph extends CardInserter {
         CompoundNBT compound = stack.getOrCreateTag();
         ListNBT nbtList = compound.getList("inv", Constants.NBT.TAG_COMPOUND);
         ItemHandlerUtil.InventoryCounts inventoryCounts = new ItemHandlerUtil.InventoryCounts(nbtList);
-        return !compound.contains("inv") ? setListFromContainer(stack, null) : new ArrayList<>(inventoryCounts.getItemCounts().values());
+        return !compound.contains("inv") ? setListFromContainer(stack, null) : new ArrayList<>(inventoryCounts.getStacks());
     }
 }
@@ -18,7 +18,7 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 
 public class PacketHandler {
-    private static final String PROTOCOL_VERSION = Integer.toString(2);
+    private static final String PROTOCOL_VERSION = Integer.toString(4);
     private static short index = 0;
 
     public static final SimpleChannel HANDLER = NetworkRegistry.ChannelBuilder
@@ -48,10 +48,18 @@ public class PacketHandler {
         registerMessage(PacketToggleNBTFilter.class, PacketToggleNBTFilter::encode, PacketToggleNBTFilter::decode, PacketToggleNBTFilter.Handler::handle);
         registerMessage(PacketChangeExtractAmt.class, PacketChangeExtractAmt::encode, PacketChangeExtractAmt::decode, PacketChangeExtractAmt.Handler::handle);
         registerMessage(PacketClearGrid.class, PacketClearGrid::encode, PacketClearGrid::decode, PacketClearGrid.Handler::handle);
+        registerMessage(PacketItemViewRequest.class, PacketItemViewRequest::encode, PacketItemViewRequest::decode, PacketItemViewRequest.Handler::handle);
+        registerMessage(PacketCraftingPrefetch.class, PacketCraftingPrefetch::encode, PacketCraftingPrefetch::decode, PacketCraftingPrefetch.Handler::handle);
+        registerMessage(PacketCraftingAutoExport.class, PacketCraftingAutoExport::encode, PacketCraftingAutoExport::decode, PacketCraftingAutoExport.Handler::handle);
+        registerMessage(PacketSetGrid.class, PacketSetGrid::encode, PacketSetGrid::decode, PacketSetGrid.Handler::handle);
+        registerMessage(PacketSortAllFromCrafter.class, PacketSortAllFromCrafter::encode, PacketSortAllFromCrafter::decode, PacketSortAllFromCrafter.Handler::handle);
+        registerMessage(PacketCraftingCancel.class, PacketCraftingCancel::encode, PacketCraftingCancel::decode, PacketCraftingCancel.Handler::handle);
 
         //Going to Client Side
         registerMessage(PacketItemCountsSync.class, PacketItemCountsSync::encode, PacketItemCountsSync::decode, PacketItemCountsSync.Handler::handle);
         registerMessage(PacketUpdateLaserRender.class, PacketUpdateLaserRender::encode, PacketUpdateLaserRender::decode, PacketUpdateLaserRender.Handler::handle);
+        registerMessage(PacketItemFlowParticles.class, PacketItemFlowParticles::encode, PacketItemFlowParticles::decode, PacketItemFlowParticles.Handler::handle);
+        registerMessage(PacketItemViewPage.class, PacketItemViewPage::encode, PacketItemViewPage::decode, PacketItemViewPage.Handler::handle);
     }
 
     public static void sendTo(Object msg, ServerPlayerEntity player) {
@@ -0,0 +1,47 @@
+package com.direwolf20.logisticslasers.common.network.packets;
+
+import com.direwolf20.logisticslasers.common.container.CraftingStationContainer;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent;
+
+import java.util.function.Supplier;
+
+public class PacketCraftingAutoExport {
+    private boolean autoExport;
+
+    public PacketCraftingAutoExport(boolean autoExport) {
+        this.autoExport = autoExport;
+    }
+
+    public static void encode(PacketCraftingAutoExport msg, PacketBuffer buffer) {
+        buffer.writeBoolean(msg.autoExport);
+    }
+
+    public static PacketCraftingAutoExport decode(PacketBuffer buffer) {
+        return new PacketCraftingAutoExport(buffer.readBoolean());
+    }
+
+    public static class Handler {
+        public static void handle(PacketCraftingAutoExport msg, Supplier<NetworkEvent.Context> ctx) {
+            ctx.get().enqueueWork(() -> {
+                ServerPlayerEntity sender = ctx.get().getSender();
+                if (sender == null)
+                    return;
+
+                Container container = sender.openContainer;
+                if (container == null)
+                    return;
+
+                if (container instanceof CraftingStationContainer) {
+                    ((CraftingStationContainer) container).tile.setAutoExport(msg.autoExport);
+                }
+
+
+            });
+
+            ctx.get().setPacketHandled(true);
+        }
+    }
+}
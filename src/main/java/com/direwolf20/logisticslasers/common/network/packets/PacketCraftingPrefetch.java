@@ -0,0 +1,47 @@
+package com.direwolf20.logisticslasers.common.network.packets;
+
+import com.direwolf20.logisticslasers.common.container.CraftingStationContainer;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent;
+
+import java.util.function.Supplier;
+
+public class PacketCraftingPrefetch {
+    private int crafts;
+
+    public PacketCraftingPrefetch(int crafts) {
+        this.crafts = crafts;
+    }
+
+    public static void encode(PacketCraftingPrefetch msg, PacketBuffer buffer) {
+        buffer.writeInt(msg.crafts);
+    }
+
+    public static PacketCraftingPrefetch decode(PacketBuffer buffer) {
+        return new PacketCraftingPrefetch(buffer.readInt());
+    }
+
+    public static class Handler {
+        public static void handle(PacketCraftingPrefetch msg, Supplier<NetworkEvent.Context> ctx) {
+            ctx.get().enqueueWork(() -> {
+                ServerPlayerEntity sender = ctx.get().getSender();
+                if (sender == null)
+                    return;
+
+                Container container = sender.openContainer;
+                if (container == null)
+                    return;
+
+                if (container instanceof CraftingStationContainer) {
+                    ((CraftingStationContainer) container).tile.setPrefetchCrafts(msg.crafts);
+                }
+
+
+            });
+
+            ctx.get().setPacketHandled(true);
+        }
+    }
+}
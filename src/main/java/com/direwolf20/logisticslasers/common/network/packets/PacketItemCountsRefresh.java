@@ -11,16 +11,22 @@ import net.minecraftforge.fml.network.NetworkEvent;
 import java.util.function.Supplier;
 
 public class PacketItemCountsRefresh {
+    private final boolean full; //Send everything, rather than just what changed since the client's last update
 
     public PacketItemCountsRefresh() {
+        this(false);
+    }
 
+    public PacketItemCountsRefresh(boolean full) {
+        this.full = full;
     }
 
     public static void encode(PacketItemCountsRefresh msg, PacketBuffer buffer) {
+        buffer.writeBoolean(msg.full);
     }
 
     public static PacketItemCountsRefresh decode(PacketBuffer buffer) {
-        return new PacketItemCountsRefresh();
+        return new PacketItemCountsRefresh(buffer.readBoolean());
     }
 
     public static class Handler {
@@ -38,7 +44,7 @@ public class PacketItemCountsRefresh {
                     CraftingStationTile te = ((CraftingStationContainer) container).tile;
                     if (te.hasController()) {
                         ControllerTile controllerTile = te.getControllerTE();
-                        controllerTile.updateItemCounts(sender);
+                        controllerTile.updateItemCounts(sender, msg.full);
                     }
                 }
 
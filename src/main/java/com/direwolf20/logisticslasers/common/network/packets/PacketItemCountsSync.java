@@ -1,45 +1,68 @@
 package com.direwolf20.logisticslasers.common.network.packets;
 
+import com.direwolf20.logisticslasers.common.network.PacketHandler;
 import com.direwolf20.logisticslasers.common.tiles.ControllerTile;
 import com.direwolf20.logisticslasers.common.util.ItemHandlerUtil;
 import net.minecraft.client.Minecraft;
-import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.nbt.ListNBT;
+import net.minecraft.item.ItemStack;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.api.distmarker.Dist;
-import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fml.DistExecutor;
 import net.minecraftforge.fml.network.NetworkEvent;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 
+/**
+ * Brings a client's copy of a controller's item counts up to date.
+ * A full sync replaces everything, otherwise only the counts that changed since @param baseVersion are sent - a count of 0 means the item is gone.
+ * If the client isn't on baseVersion it missed something, and asks for a full sync instead.
+ */
 public class PacketItemCountsSync {
-    private final ItemHandlerUtil.InventoryCounts itemCounts;
     private final BlockPos controllerPos;
+    private final boolean full;
+    private final int baseVersion;
+    private final int newVersion;
+    private final List<ItemStack> stacks; //Single items identifying what changed
+    private final int[] counts; //The new total count of each of the stacks
 
-    public PacketItemCountsSync(ItemHandlerUtil.InventoryCounts itemCounts, BlockPos pos) {
-        this.itemCounts = itemCounts;
+    public PacketItemCountsSync(BlockPos pos, boolean full, int baseVersion, int newVersion, List<ItemStack> stacks, int[] counts) {
         this.controllerPos = pos;
+        this.full = full;
+        this.baseVersion = baseVersion;
+        this.newVersion = newVersion;
+        this.stacks = stacks;
+        this.counts = counts;
     }
 
     public static void encode(PacketItemCountsSync msg, PacketBuffer buffer) {
-        ItemHandlerUtil.InventoryCounts thisList = msg.itemCounts;
-        CompoundNBT tag = new CompoundNBT();
-        ListNBT nbtList = thisList.serialize();
-
-        tag.put("list", nbtList);
-        buffer.writeCompoundTag(tag);
         buffer.writeBlockPos(msg.controllerPos);
+        buffer.writeBoolean(msg.full);
+        buffer.writeVarInt(msg.baseVersion);
+        buffer.writeVarInt(msg.newVersion);
+        buffer.writeVarInt(msg.stacks.size());
+        for (int i = 0; i < msg.stacks.size(); i++) {
+            buffer.writeItemStack(msg.stacks.get(i));
+            buffer.writeVarInt(msg.counts[i]);
+        }
     }
 
     public static PacketItemCountsSync decode(PacketBuffer buffer) {
-        CompoundNBT tag = buffer.readCompoundTag();
-        ListNBT nbtList = tag.getList("list", Constants.NBT.TAG_COMPOUND);
-        ItemHandlerUtil.InventoryCounts thisList = new ItemHandlerUtil.InventoryCounts(nbtList);
         BlockPos pos = buffer.readBlockPos();
-        return new PacketItemCountsSync(thisList, pos);
+        boolean full = buffer.readBoolean();
+        int baseVersion = buffer.readVarInt();
+        int newVersion = buffer.readVarInt();
+        int size = buffer.readVarInt();
+        List<ItemStack> stacks = new ArrayList<>(size);
+        int[] counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            stacks.add(buffer.readItemStack());
+            counts[i] = buffer.readVarInt();
+        }
+        return new PacketItemCountsSync(pos, full, baseVersion, newVersion, stacks, counts);
     }
 
     public static class Handler {
@@ -51,8 +74,24 @@ public class PacketItemCountsSync {
 
     public static void clientPacketHandler(PacketItemCountsSync msg) {
         TileEntity te = Minecraft.getInstance().world.getTileEntity(msg.controllerPos);
-        if (te instanceof ControllerTile) {
-            ((ControllerTile) te).setItemCounts(msg.itemCounts);
+        if (!(te instanceof ControllerTile)) return;
+        ControllerTile controllerTile = (ControllerTile) te;
+        if (msg.full) {
+            ItemHandlerUtil.InventoryCounts itemCounts = new ItemHandlerUtil.InventoryCounts();
+            for (int i = 0; i < msg.stacks.size(); i++) {
+                itemCounts.setCount(ItemHandlerUtil.size(msg.stacks.get(i), msg.counts[i]));
+            }
+            controllerTile.setItemCounts(itemCounts, msg.newVersion);
+            return;
+        }
+        if (controllerTile.getItemCountsVersion() != msg.baseVersion) { //We missed an update somewhere, start over
+            PacketHandler.sendToServer(new PacketItemCountsRefresh(true));
+            return;
+        }
+        ItemHandlerUtil.InventoryCounts itemCounts = controllerTile.getItemCounts();
+        for (int i = 0; i < msg.stacks.size(); i++) {
+            itemCounts.putCount(msg.stacks.get(i), msg.counts[i]);
         }
+        controllerTile.setItemCounts(itemCounts, msg.newVersion);
     }
 }
@@ -0,0 +1,82 @@
+package com.direwolf20.logisticslasers.common.network.packets;
+
+import com.direwolf20.logisticslasers.client.particles.itemparticle.ItemFlowParticle;
+import net.minecraft.item.ItemStack;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.network.NetworkEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * All the item flows a controller moved this tick that a single player can see, batched into one packet.
+ * The client decides how many particles to actually spawn for each flow.
+ */
+public class PacketItemFlowParticles {
+    private final List<Flow> flows;
+    private final int ticksPerBlock;
+
+    public PacketItemFlowParticles(List<Flow> flows, int ticksPerBlock) {
+        this.flows = flows;
+        this.ticksPerBlock = ticksPerBlock;
+    }
+
+    public static void encode(PacketItemFlowParticles msg, PacketBuffer buffer) {
+        buffer.writeVarInt(msg.ticksPerBlock);
+        buffer.writeVarInt(msg.flows.size());
+        for (Flow flow : msg.flows) {
+            buffer.writeLong(flow.fromPos.toLong());
+            buffer.writeLong(flow.toPos.toLong());
+            buffer.writeItemStack(flow.stack); //The whole stack, so enchanted and NBT-dependent items look right
+            buffer.writeVarInt(flow.count);
+        }
+    }
+
+    public static PacketItemFlowParticles decode(PacketBuffer buffer) {
+        int ticksPerBlock = buffer.readVarInt();
+        int size = buffer.readVarInt();
+        List<Flow> flows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            BlockPos fromPos = BlockPos.fromLong(buffer.readLong());
+            BlockPos toPos = BlockPos.fromLong(buffer.readLong());
+            ItemStack stack = buffer.readItemStack();
+            int count = buffer.readVarInt();
+            flows.add(new Flow(fromPos, toPos, stack, count));
+        }
+        return new PacketItemFlowParticles(flows, ticksPerBlock);
+    }
+
+    public static class Handler {
+        public static void handle(PacketItemFlowParticles msg, Supplier<NetworkEvent.Context> ctx) {
+            ctx.get().enqueueWork(() -> DistExecutor.runWhenOn(Dist.CLIENT, () -> () -> clientPacketHandler(msg)));
+            ctx.get().setPacketHandled(true);
+        }
+    }
+
+    public static void clientPacketHandler(PacketItemFlowParticles msg) {
+        for (Flow flow : msg.flows) {
+            ItemFlowParticle.spawnFlow(flow.fromPos, flow.toPos, flow.stack, flow.count, msg.ticksPerBlock);
+        }
+    }
+
+    /**
+     * One hop of one shipment - a route segment between two nodes and what was carried across it.
+     */
+    public static class Flow {
+        public final BlockPos fromPos;
+        public final BlockPos toPos;
+        public final ItemStack stack; //One of what was carried, tag and all
+        public final int count;
+
+        public Flow(BlockPos fromPos, BlockPos toPos, ItemStack stack, int count) {
+            this.fromPos = fromPos;
+            this.toPos = toPos;
+            this.stack = stack;
+            this.count = count;
+        }
+    }
+}
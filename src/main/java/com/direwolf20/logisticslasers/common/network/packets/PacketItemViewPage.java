@@ -0,0 +1,81 @@
+package com.direwolf20.logisticslasers.common.network.packets;
+
+import com.direwolf20.logisticslasers.common.tiles.ControllerTile;
+import net.minecraft.client.Minecraft;
+import net.minecraft.item.ItemStack;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.network.NetworkEvent;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * One page of a network's items, already searched and sorted by the server - the answer to PacketItemViewRequest.
+ * The ingredient status has one entry per ingredient of the requested recipe, see the INGREDIENT_ constants.
+ */
+public class PacketItemViewPage {
+    public static final byte INGREDIENT_IN_STATION = 0;
+    public static final byte INGREDIENT_IN_NETWORK = 1;
+    public static final byte INGREDIENT_MISSING = 2;
+
+    private final BlockPos controllerPos;
+    public final int page;
+    public final int maxPage;
+    public final List<ItemStack> stacks; //The stack counts are the network totals
+    public final byte[] ingredientStatus;
+
+    public PacketItemViewPage(BlockPos pos, int page, int maxPage, List<ItemStack> stacks, byte[] ingredientStatus) {
+        this.controllerPos = pos;
+        this.page = page;
+        this.maxPage = maxPage;
+        this.stacks = stacks;
+        this.ingredientStatus = ingredientStatus;
+    }
+
+    public static void encode(PacketItemViewPage msg, PacketBuffer buffer) {
+        buffer.writeBlockPos(msg.controllerPos);
+        buffer.writeVarInt(msg.page);
+        buffer.writeVarInt(msg.maxPage);
+        buffer.writeVarInt(msg.stacks.size());
+        for (ItemStack stack : msg.stacks) {
+            buffer.writeItemStack(ItemHandlerHelper.copyStackWithSize(stack, 1));
+            buffer.writeVarInt(stack.getCount()); //Written separately, the itemstack's own count is only a byte
+        }
+        buffer.writeByteArray(msg.ingredientStatus);
+    }
+
+    public static PacketItemViewPage decode(PacketBuffer buffer) {
+        BlockPos pos = buffer.readBlockPos();
+        int page = buffer.readVarInt();
+        int maxPage = buffer.readVarInt();
+        int size = buffer.readVarInt();
+        List<ItemStack> stacks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ItemStack stack = buffer.readItemStack();
+            stack.setCount(buffer.readVarInt());
+            stacks.add(stack);
+        }
+        byte[] ingredientStatus = buffer.readByteArray(9);
+        return new PacketItemViewPage(pos, page, maxPage, stacks, ingredientStatus);
+    }
+
+    public static class Handler {
+        public static void handle(PacketItemViewPage msg, Supplier<NetworkEvent.Context> ctx) {
+            ctx.get().enqueueWork(() -> DistExecutor.runWhenOn(Dist.CLIENT, () -> () -> clientPacketHandler(msg)));
+            ctx.get().setPacketHandled(true);
+        }
+    }
+
+    public static void clientPacketHandler(PacketItemViewPage msg) {
+        TileEntity te = Minecraft.getInstance().world.getTileEntity(msg.controllerPos);
+        if (te instanceof ControllerTile) {
+            ((ControllerTile) te).setItemView(msg);
+        }
+    }
+}
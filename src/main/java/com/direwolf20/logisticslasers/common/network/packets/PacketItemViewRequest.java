@@ -0,0 +1,74 @@
+package com.direwolf20.logisticslasers.common.network.packets;
+
+import com.direwolf20.logisticslasers.common.container.CraftingStationContainer;
+import com.direwolf20.logisticslasers.common.tiles.ControllerTile;
+import com.direwolf20.logisticslasers.common.tiles.CraftingStationTile;
+import com.direwolf20.logisticslasers.common.util.NetworkItemView;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fml.network.NetworkEvent;
+
+import javax.annotation.Nullable;
+import java.util.function.Supplier;
+
+/**
+ * Asks the server for one page of the network's items, used by crafting stations on networks too big to send in full.
+ * Also carries the recipe currently in the crafting grid, so the server can say which of its ingredients are available.
+ */
+public class PacketItemViewRequest {
+    private final String search;
+    private final int sortType;
+    private final int page;
+    @Nullable
+    private final ResourceLocation recipeId;
+
+    public PacketItemViewRequest(String search, int sortType, int page, @Nullable ResourceLocation recipeId) {
+        this.search = search;
+        this.sortType = sortType;
+        this.page = page;
+        this.recipeId = recipeId;
+    }
+
+    public static void encode(PacketItemViewRequest msg, PacketBuffer buffer) {
+        buffer.writeString(msg.search, 256);
+        buffer.writeVarInt(msg.sortType);
+        buffer.writeVarInt(msg.page);
+        buffer.writeBoolean(msg.recipeId != null);
+        if (msg.recipeId != null)
+            buffer.writeResourceLocation(msg.recipeId);
+    }
+
+    public static PacketItemViewRequest decode(PacketBuffer buffer) {
+        String search = buffer.readString(256);
+        int sortType = buffer.readVarInt();
+        int page = buffer.readVarInt();
+        ResourceLocation recipeId = buffer.readBoolean() ? buffer.readResourceLocation() : null;
+        return new PacketItemViewRequest(search, sortType, page, recipeId);
+    }
+
+    public static class Handler {
+        public static void handle(PacketItemViewRequest msg, Supplier<NetworkEvent.Context> ctx) {
+            ctx.get().enqueueWork(() -> {
+                ServerPlayerEntity sender = ctx.get().getSender();
+                if (sender == null)
+                    return;
+
+                Container container = sender.openContainer;
+                if (container == null)
+                    return;
+
+                if (container instanceof CraftingStationContainer) {
+                    CraftingStationTile te = ((CraftingStationContainer) container).tile;
+                    if (te.hasController()) {
+                        ControllerTile controllerTile = te.getControllerTE();
+                        controllerTile.updateItemView(sender, msg.search, NetworkItemView.SortType.byIndex(msg.sortType), msg.page, msg.recipeId);
+                    }
+                }
+            });
+
+            ctx.get().setPacketHandled(true);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.direwolf20.logisticslasers.common.network.packets;
+
+import com.direwolf20.logisticslasers.common.container.CraftingStationContainer;
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.item.ItemStack;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Fills a crafting station's whole grid at once, like from a JEI recipe transfer. Each of the nine slots carries every item that can go there,
+ * the server picks the one the network has most of.
+ */
+public class PacketSetGrid {
+    public static final int GRID_SLOTS = 9;
+    public static final int MAX_ALTERNATIVES = 64; //Tags can list a lot of items, more than this per slot aren't sent
+    private final List<List<ItemStack>> grid;
+
+    public PacketSetGrid(List<List<ItemStack>> grid) {
+        this.grid = grid;
+    }
+
+    public static void encode(PacketSetGrid msg, PacketBuffer buffer) {
+        int slots = Math.min(msg.grid.size(), GRID_SLOTS);
+        buffer.writeVarInt(slots);
+        for (List<ItemStack> alternatives : msg.grid.subList(0, slots)) {
+            int count = Math.min(alternatives.size(), MAX_ALTERNATIVES);
+            buffer.writeVarInt(count);
+            for (int i = 0; i < count; i++) {
+                buffer.writeItemStack(alternatives.get(i));
+            }
+        }
+    }
+
+    public static PacketSetGrid decode(PacketBuffer buffer) {
+        //Both counts come from the client, so are checked before anything is allocated for them - the same way readByteArray rejects oversized arrays
+        int slots = buffer.readVarInt();
+        if (slots < 0 || slots > GRID_SLOTS)
+            throw new DecoderException("Grid has " + slots + " slots, at most " + GRID_SLOTS + " allowed");
+        List<List<ItemStack>> grid = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            int count = buffer.readVarInt();
+            if (count < 0 || count > MAX_ALTERNATIVES)
+                throw new DecoderException("Grid slot has " + count + " items, at most " + MAX_ALTERNATIVES + " allowed");
+            List<ItemStack> alternatives = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                alternatives.add(buffer.readItemStack());
+            }
+            grid.add(alternatives);
+        }
+        return new PacketSetGrid(grid);
+    }
+
+    public static class Handler {
+        public static void handle(PacketSetGrid msg, Supplier<NetworkEvent.Context> ctx) {
+            ctx.get().enqueueWork(() -> {
+                ServerPlayerEntity sender = ctx.get().getSender();
+                if (sender == null)
+                    return;
+
+                Container container = sender.openContainer;
+                if (container == null)
+                    return;
+
+                if (container instanceof CraftingStationContainer) {
+                    ((CraftingStationContainer) container).tile.setGrid(msg.grid);
+                }
+
+
+            });
+
+            ctx.get().setPacketHandled(true);
+        }
+    }
+}
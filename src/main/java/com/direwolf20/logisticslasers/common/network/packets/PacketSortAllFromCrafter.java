@@ -0,0 +1,45 @@
+package com.direwolf20.logisticslasers.common.network.packets;
+
+import com.direwolf20.logisticslasers.common.container.CraftingStationContainer;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent;
+
+import java.util.function.Supplier;
+
+public class PacketSortAllFromCrafter {
+
+    public PacketSortAllFromCrafter() {
+
+    }
+
+    public static void encode(PacketSortAllFromCrafter msg, PacketBuffer buffer) {
+    }
+
+    public static PacketSortAllFromCrafter decode(PacketBuffer buffer) {
+        return new PacketSortAllFromCrafter();
+    }
+
+    public static class Handler {
+        public static void handle(PacketSortAllFromCrafter msg, Supplier<NetworkEvent.Context> ctx) {
+            ctx.get().enqueueWork(() -> {
+                ServerPlayerEntity sender = ctx.get().getSender();
+                if (sender == null)
+                    return;
+
+                Container container = sender.openContainer;
+                if (container == null)
+                    return;
+
+                if (container instanceof CraftingStationContainer) {
+                    ((CraftingStationContainer) container).tile.sortAllToNetwork(sender);
+                }
+
+
+            });
+
+            ctx.get().setPacketHandled(true);
+        }
+    }
+}
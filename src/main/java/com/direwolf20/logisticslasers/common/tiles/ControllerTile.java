@@ -1,19 +1,37 @@
 package com.direwolf20.logisticslasers.common.tiles;
 
 import com.direwolf20.logisticslasers.Config;
-import com.direwolf20.logisticslasers.client.particles.itemparticle.ItemFlowParticleData;
 import com.direwolf20.logisticslasers.common.blocks.ModBlocks;
 import com.direwolf20.logisticslasers.common.capabilities.FEEnergyStorage;
 import com.direwolf20.logisticslasers.common.container.ControllerContainer;
+import com.direwolf20.logisticslasers.common.container.CraftingStationContainer;
 import com.direwolf20.logisticslasers.common.items.logiccards.*;
 import com.direwolf20.logisticslasers.common.network.PacketHandler;
 import com.direwolf20.logisticslasers.common.network.packets.PacketItemCountsSync;
+import com.direwolf20.logisticslasers.common.network.packets.PacketItemFlowParticles;
+import com.direwolf20.logisticslasers.common.network.packets.PacketItemViewPage;
 import com.direwolf20.logisticslasers.common.tiles.basetiles.NodeTileBase;
+import com.direwolf20.logisticslasers.common.util.ChunkWaitTracker;
 import com.direwolf20.logisticslasers.common.util.ControllerTask;
+import com.direwolf20.logisticslasers.common.util.CraftingPattern;
+import com.direwolf20.logisticslasers.common.util.CraftingScheduler;
+import com.direwolf20.logisticslasers.common.util.DestinationCapacity;
+import com.direwolf20.logisticslasers.common.util.ItemHandlerAdapter;
 import com.direwolf20.logisticslasers.common.util.ItemHandlerUtil;
 import com.direwolf20.logisticslasers.common.util.ItemStackKey;
+import com.direwolf20.logisticslasers.common.util.NetworkItemIndex;
+import com.direwolf20.logisticslasers.common.util.NetworkItemView;
+import com.direwolf20.logisticslasers.common.util.NodeHandle;
+import com.direwolf20.logisticslasers.common.util.OverflowBuffer;
+import com.direwolf20.logisticslasers.common.util.ProviderSlotIndex;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.block.BlockState;
@@ -23,7 +41,10 @@ import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.inventory.container.Container;
 import net.minecraft.inventory.container.INamedContainerProvider;
 import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.ICraftingRecipe;
+import net.minecraft.item.crafting.IRecipe;
 import net.minecraft.item.crafting.Ingredient;
+import net.minecraft.item.crafting.RecipeManager;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.ListNBT;
 import net.minecraft.nbt.NBTUtil;
@@ -31,11 +52,14 @@ import net.minecraft.tileentity.ITickableTileEntity;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.Direction;
 import net.minecraft.util.IIntArray;
+import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.vector.Vector3d;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.StringTextComponent;
-import net.minecraft.world.server.ServerWorld;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.server.ServerChunkProvider;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.common.util.LazyOptional;
@@ -47,6 +71,7 @@ import net.minecraftforge.items.ItemStackHandler;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static com.direwolf20.logisticslasers.common.util.MiscTools.isStackValidForCard;
 
@@ -63,7 +88,13 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
     private final Set<BlockPos> allNodes = new HashSet<>();
     private final Set<ControllerTask> taskList = new HashSet<>();
     private final HashMap<ControllerTask, ArrayList<ControllerTask>> parentTaskMap = new HashMap<>();
-    private ItemHandlerUtil.InventoryCounts storedItems = new ItemHandlerUtil.InventoryCounts();
+    private final OverflowBuffer overflowBuffer = new OverflowBuffer(this); //Items with nowhere else to go
+    private final DestinationCapacity destinationCapacity = new DestinationCapacity(); //Summaries of how much room destination inventories have
+    private final ProviderSlotIndex providerSlots = new ProviderSlotIndex(); //Which provider slots hold which items
+    private final CraftingScheduler craftingScheduler = new CraftingScheduler(this); //Crafting jobs in progress
+    private HashMap<ItemStackKey, List<CraftingPattern>> patternCache = null; //The pattern cards in the network by what they make, built when first needed
+    private RecipeManager patternRecipes = null; //The recipes the patternCache was built against
+    private int patternVersion = 0; //Goes up every time the patternCache is rebuilt, so plans made from an older one can tell
 
     //Non-Persistent data (Generated if empty)
     private final Set<BlockPos> extractorNodes = new HashSet<>(); //All Inventory nodes that contain an extractor card.
@@ -76,14 +107,26 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
     private final HashMap<ItemStackKey, ArrayList<BlockPos>> inserterCache = new HashMap<>(); //A cache of all insertable items
     private final HashMap<ItemStackKey, ArrayList<BlockPos>> providerCache = new HashMap<>(); //A cache of all providable items
     private final HashMap<BlockPos, ArrayList<ItemStack>> stockerCache = new HashMap<>(); //A cache of all stocker requests
-    private final HashMap<Ingredient, BlockPos> ingredientCache = new HashMap<>(); //A cache of the last ingredient location
-    private ItemHandlerUtil.InventoryCounts itemCounts = new ItemHandlerUtil.InventoryCounts(); //A cache of all items available via providerCards for the CraftingStations to use
+    private ItemHandlerUtil.InventoryCounts itemCounts = new ItemHandlerUtil.InventoryCounts(); //Client side - all items available via providerCards for the CraftingStations to use, kept up to date by PacketItemCountsSync
+    private final NetworkItemIndex itemIndex = new NetworkItemIndex(this); //Incrementally maintained counts of everything the providers hold
+    private final HashMap<UUID, ItemCountsWatcher> itemCountsWatchers = new HashMap<>(); //What each player was last sent of the itemCounts
+    private int itemCountsVersion = 0; //Client side - the version of itemCounts we were last sent
+    private PacketItemViewPage itemView = null; //Client side - the page we were last sent, if the network is too big to send in full
     private Object2IntMap<BlockPos> invNodeSlot = new Object2IntOpenHashMap<>(); //Used to track which slot an inventory node is currently working on.
     private Table<BlockPos, ItemStackKey, Integer> extractorAmounts = HashBasedTable.create();
+    private final Long2ObjectOpenHashMap<ArrayList<ControllerTask>> parkedTasks = new Long2ObjectOpenHashMap<>(); //Tasks waiting on an unloaded chunk, keyed by that chunk
+    private final Long2BooleanOpenHashMap loadedChunks = new Long2BooleanOpenHashMap(); //Which chunks are loaded, only valid for loadedChunksTime
+    private long loadedChunksTime = -1;
+    private final HashMap<BlockPos, NodeHandle> nodeHandles = new HashMap<>(); //Resolved tile entities and inventories of the nodes this controller works with
+    private final ArrayList<PacketItemFlowParticles.Flow> pendingFlows = new ArrayList<>(); //Item flows to render this tick, sent to clients in one batch
     private boolean checkedNodes = false;
+    private int bouncedStacks = 0; //Stacks that reached a full destination since the controller loaded
+    private int requeuedStacks = 0; //Bounced stacks sent back to the controller to wait out their backoff
     private int passiveRFCost = 0;
 
     private final IItemHandler EMPTY = new ItemStackHandler(0);
+    private static final long ALL_CHUNKS_LOADED = Long.MAX_VALUE; //Not a chunk any real ChunkPos.asLong() can produce
+    private static final int TASK_AREA_RADIUS = 3; //How far around each end of a task, and the controller, needs to be loaded
 
     private int ticksPerBlock = 4; //How fast the items move through the network, x ticks per block length
 
@@ -98,25 +141,57 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
         return providerNodes;
     }
 
-    public void setItemCounts(ItemHandlerUtil.InventoryCounts itemCounts) {
+    public void setItemCounts(ItemHandlerUtil.InventoryCounts itemCounts, int version) {
         this.itemCounts = itemCounts;
+        this.itemCountsVersion = version;
+        this.itemView = null;
+    }
+
+    /**
+     * Client side - the network was too big to send, so we were sent the page of it the crafting station is showing instead
+     */
+    public void setItemView(PacketItemViewPage itemView) {
+        this.itemView = itemView;
+        this.itemCounts = new ItemHandlerUtil.InventoryCounts();
+        this.itemCountsVersion = -1; //Anything but a full sync now needs to start over
+    }
+
+    @Nullable
+    public PacketItemViewPage getItemView() {
+        return itemView;
+    }
+
+    public int getItemCountsVersion() {
+        return itemCountsVersion;
     }
 
     public ItemHandlerUtil.InventoryCounts getItemCounts() {
         return itemCounts;
     }
 
+    public Set<BlockPos> getCrafterNodes() {
+        return crafterNodes;
+    }
+
+    public CraftingScheduler getCraftingScheduler() {
+        return craftingScheduler;
+    }
+
+    public ProviderSlotIndex getProviderSlotIndex() {
+        return providerSlots;
+    }
+
     public Set<BlockPos> getInventoryNodes() {
         return inventoryNodes;
     }
 
 
     public ItemHandlerUtil.InventoryCounts getStoredItems() {
-        return storedItems;
+        return overflowBuffer.getItems();
     }
 
     public boolean hasStoredItems() {
-        return !storedItems.getItemCounts().isEmpty();
+        return !overflowBuffer.isEmpty();
     }
 
 
@@ -128,6 +203,7 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
         Set<BlockPos> oldNodes = new HashSet<>(allNodes); //Store the list of nodes this used to control, used to remove controller data from that pos later
         clearCachedRoutes(); //Clear the cached routing of all nodes in the network
         //Clear all the cached node data
+        nodeHandles.clear();
         allNodes.clear();
         crafterNodes.clear();
         inventoryNodes.clear();
@@ -169,20 +245,137 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
     }
 
     /**
-     * Builds the itemCounts cache, used to display contents of the network at the crafting station
-     * Sends a packet to the @param player's client updating it for client-side display in CraftingStationScreen
+     * Sends the @param player the changes in the network's contents since they were last updated, for client-side display in CraftingStationScreen
      */
     public void updateItemCounts(ServerPlayerEntity player) {
-        itemCounts = new ItemHandlerUtil.InventoryCounts();
-        Set<BlockPos> providers = getProviderNodes();
-        for (BlockPos pos : providers) {
-            ArrayList<ItemStack> providerFilters = getProviderFilters(pos);
-            IItemHandler handler = getAttachedInventory(pos);
-            for (ItemStack providerFilter : providerFilters) {
-                itemCounts.addHandlerWithFilter(handler, providerFilter);
+        updateItemCounts(player, false);
+    }
+
+    /**
+     * Sends the @param player the contents of the network for client-side display in CraftingStationScreen
+     * Only providers that changed since the last call are rescanned (see NetworkItemIndex), and only counts that changed since this player's
+     * last update are sent, unless @param full is set or we've never sent them anything
+     */
+    public void updateItemCounts(ServerPlayerEntity player, boolean full) {
+        itemIndex.refresh();
+        itemCountsWatchers.keySet().removeIf(uuid -> world.getServer().getPlayerList().getPlayerByUUID(uuid) == null); //Forget players that logged off
+        Object2IntMap<ItemStackKey> totals = itemIndex.getTotals();
+        ItemCountsWatcher watcher = itemCountsWatchers.get(player.getUniqueID());
+        if (watcher == null) {
+            watcher = new ItemCountsWatcher();
+            itemCountsWatchers.put(player.getUniqueID(), watcher);
+            full = true;
+        }
+        if (totals.size() > Config.ITEM_VIEW_PAGING_THRESHOLD.get()) { //Too big to send - they get the page they're looking at instead
+            watcher.paged = true;
+            watcher.lastSent.clear();
+            sendItemViewPage(player, watcher);
+            return;
+        }
+        if (watcher.paged) { //Just dropped back under the limit, they have nothing to apply a delta to
+            watcher.paged = false;
+            full = true;
+        }
+
+        List<ItemStack> stacks = new ArrayList<>();
+        IntArrayList counts = new IntArrayList();
+        for (Object2IntMap.Entry<ItemStackKey> entry : totals.object2IntEntrySet()) {
+            if (!full && watcher.lastSent.getInt(entry.getKey()) == entry.getIntValue()) continue; //Unchanged
+            stacks.add(itemIndex.getPrototype(entry.getKey()));
+            counts.add(entry.getIntValue());
+        }
+        if (!full) {
+            for (ItemStackKey key : watcher.lastSent.keySet()) {
+                if (totals.containsKey(key)) continue;
+                ItemStack removed = new ItemStack(key.item);
+                removed.setTag(key.nbt == null ? null : key.nbt.copy());
+                stacks.add(removed);
+                counts.add(0); //Gone from the network
+            }
+            if (stacks.isEmpty()) return; //Nothing to tell them
+        }
+
+        int baseVersion = watcher.version;
+        watcher.version++;
+        watcher.lastSent = new Object2IntOpenHashMap<>(totals);
+        PacketHandler.sendTo(new PacketItemCountsSync(pos, full, baseVersion, watcher.version, stacks, counts.toIntArray()), player);
+    }
+
+    /**
+     * Called when the @param player changes what they're looking at in a crafting station on a network too big to send in full
+     * Remembers their @param search, @param sortType, @param page and the @param recipeId in their crafting grid, and sends them the page
+     */
+    public void updateItemView(ServerPlayerEntity player, String search, NetworkItemView.SortType sortType, int page, @Nullable ResourceLocation recipeId) {
+        ItemCountsWatcher watcher = itemCountsWatchers.get(player.getUniqueID());
+        if (watcher == null) return; //They haven't been sent anything yet, so can't be asking for pages
+        watcher.search = search;
+        watcher.sortType = sortType;
+        watcher.page = Math.max(0, page); //From the client, so never trusted to be sensible
+        watcher.recipeId = recipeId;
+        updateItemCounts(player, false);
+    }
+
+    /**
+     * Searches, sorts and pages the network's items for the @param watcher, and sends the @param player the page they asked for
+     * The sorted list is kept until the network contents or the search changes, so flipping pages is cheap
+     */
+    private void sendItemViewPage(ServerPlayerEntity player, ItemCountsWatcher watcher) {
+        if (watcher.view == null || watcher.viewVersion != itemIndex.getVersion() || !watcher.search.equals(watcher.viewSearch) || watcher.sortType != watcher.viewSortType) {
+            Object2IntMap<ItemStackKey> totals = itemIndex.getTotals();
+            List<ItemStack> stacks = new ArrayList<>(totals.size());
+            for (Object2IntMap.Entry<ItemStackKey> entry : totals.object2IntEntrySet()) {
+                stacks.add(ItemHandlerHelper.copyStackWithSize(itemIndex.getPrototype(entry.getKey()), entry.getIntValue()));
             }
+            watcher.view = NetworkItemView.filterAndSort(stacks, watcher.search, watcher.sortType);
+            watcher.viewVersion = itemIndex.getVersion();
+            watcher.viewSearch = watcher.search;
+            watcher.viewSortType = watcher.sortType;
         }
-        PacketHandler.sendTo(new PacketItemCountsSync(itemCounts, pos), player);
+        int maxPage = NetworkItemView.getMaxPage(watcher.view.size());
+        int page = Math.max(0, Math.min(watcher.page, maxPage));
+        List<ItemStack> pageStacks = new ArrayList<>(NetworkItemView.getPage(watcher.view, page));
+        PacketHandler.sendTo(new PacketItemViewPage(pos, page, maxPage, pageStacks, getIngredientStatus(player, watcher.recipeId)), player);
+    }
+
+    /**
+     * Works out where each ingredient of the recipe @param recipeId would come from if the @param player crafted it at their open crafting station
+     *
+     * @return one of PacketItemViewPage's INGREDIENT_ constants per ingredient of the recipe
+     */
+    private byte[] getIngredientStatus(ServerPlayerEntity player, @Nullable ResourceLocation recipeId) {
+        if (recipeId == null || !(player.openContainer instanceof CraftingStationContainer)) return new byte[0];
+        IRecipe<?> recipe = world.getRecipeManager().getRecipe(recipeId).orElse(null);
+        if (recipe == null) return new byte[0];
+        CraftingStationTile station = ((CraftingStationContainer) player.openContainer).tile;
+        List<ItemStack> stationStacks = new ArrayList<>();
+        stationStacks.addAll(new ItemHandlerUtil.InventoryCounts(station.getInventoryStacks()).getStacks());
+        Object2IntMap<ItemStackKey> totals = itemIndex.getTotals();
+        Object2IntOpenHashMap<ItemStackKey> used = new Object2IntOpenHashMap<>();
+        List<Ingredient> ingredients = recipe.getIngredients();
+        byte[] status = new byte[Math.min(ingredients.size(), 9)];
+        for (int i = 0; i < status.length; i++) {
+            Ingredient ingredient = ingredients.get(i);
+            status[i] = PacketItemViewPage.INGREDIENT_IN_STATION;
+            if (ingredient.hasNoMatchingItems()) continue;
+            boolean found = false;
+            for (ItemStack stack : stationStacks) {
+                if (stack.getCount() > 0 && ingredient.test(stack)) {
+                    stack.shrink(1);
+                    found = true;
+                    break;
+                }
+            }
+            if (found) continue;
+            status[i] = PacketItemViewPage.INGREDIENT_MISSING;
+            for (ItemStackKey key : itemIndex.getMatchingKeys(ingredient)) {
+                if (totals.getInt(key) > used.getInt(key)) {
+                    used.addTo(key, 1);
+                    status[i] = PacketItemViewPage.INGREDIENT_IN_NETWORK;
+                    break;
+                }
+            }
+        }
+        return status;
     }
 
     /**
@@ -201,6 +394,11 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
         extractorCache.clear();
         stockerCache.clear();
         extractorAmounts.clear();
+        itemIndex.clear();
+        destinationCapacity.clear();
+        providerSlots.clear();
+        patternCache = null;
+        overflowBuffer.wakeAll(); //Anything stuck in the internal inventory may have somewhere to go now
         for (BlockPos pos : inventoryNodes) {
             checkInvNode(pos);
         }
@@ -228,6 +426,10 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
         stockerCache.clear();
         extractorAmounts.clear();
         removeBlockPosFromPriorities(pos); //Remove this position form the inserter priorities
+        itemIndex.removeProvider(pos); //Its provider cards may have changed, so count it again from scratch
+        invalidateNodeHandle(pos); //Its attached inventory may have changed
+        patternCache = null; //Its pattern cards may have changed
+        overflowBuffer.wakeAll(); //Its inserter cards may have changed too
         if (!te.hasController()) return; //If this tile was removed from the network, don't recalculate its contents
 
         ItemStackHandler handler = te.getInventoryStacks();
@@ -365,6 +567,36 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
         return super.addNode(pos);
     }
 
+    /**
+     * Get the cached handle for the node at @param pos, resolving it from the world if we don't have a live one yet
+     *
+     * @return the handle, or null if there is no node at that position
+     */
+    @Nullable
+    public NodeHandle getNodeHandle(BlockPos pos) {
+        NodeHandle handle = nodeHandles.get(pos);
+        if (handle != null && handle.isValid())
+            return handle;
+        TileEntity te = world.getTileEntity(pos);
+        if (!(te instanceof NodeTileBase)) {
+            nodeHandles.remove(pos);
+            return null;
+        }
+        handle = new NodeHandle((NodeTileBase) te);
+        nodeHandles.put(pos, handle);
+        return handle;
+    }
+
+    /**
+     * Drop the cached handle for @param pos, it'll be resolved again the next time its needed.
+     * Called when the node's cards change, when it's removed and when the inventory it faces goes away
+     */
+    public void invalidateNodeHandle(BlockPos pos) {
+        nodeHandles.remove(pos);
+        destinationCapacity.invalidate(pos);
+        providerSlots.invalidate(pos);
+    }
+
     /**
      * Get the item handler attached to an inventory node (Like an adjacent chest or furnace) at @param pos
      * If this is a crafting station, return the crafter's inventory
@@ -372,22 +604,116 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
      * @return the item handler
      */
     public IItemHandler getAttachedInventory(BlockPos pos) {
-        TileEntity te = world.getTileEntity(pos);
-        if (te == null)
+        NodeHandle handle = getNodeHandle(pos);
+        if (handle == null)
             return null;
-        if (te instanceof InventoryNodeTile) {
-            InventoryNodeTile sourceTE = (InventoryNodeTile) te;
-            IItemHandler sourceitemHandler = sourceTE.getHandler().orElse(EMPTY); //Get the inventory handler of the block the inventory node is facing
-            if (sourceitemHandler.getSlots() == 0) return null; //If its empty, return null
-            return sourceitemHandler;
-        }
-        if (te instanceof CraftingStationTile) {
-            CraftingStationTile sourceTE = (CraftingStationTile) te;
-            IItemHandler sourceitemHandler = sourceTE.getInventoryStacks(); //Get the inventory handler of the crafter
-            if (sourceitemHandler.getSlots() == 0) return null; //If its empty, return null
-            return sourceitemHandler;
+        return handle.getAttachedInventory();
+    }
+
+    /**
+     * @return an ItemHandlerAdapter for the inventory attached to the node at @param pos, for read-only checks without copying stacks
+     */
+    @Nullable
+    public ItemHandlerAdapter getAttachedAdapter(BlockPos pos) {
+        NodeHandle handle = getNodeHandle(pos);
+        if (handle == null)
+            return null;
+        return handle.getAttachedAdapter();
+    }
+
+    /**
+     * @return the crafting station on this network at @param pos, or null if there isn't one or its chunk isn't loaded
+     */
+    @Nullable
+    public CraftingStationTile getCraftingStation(BlockPos pos) {
+        if (!crafterNodes.contains(pos) || !isLoaded(pos)) return null;
+        NodeHandle handle = getNodeHandle(pos);
+        if (handle == null || !(handle.tile instanceof CraftingStationTile))
+            return null;
+        return (CraftingStationTile) handle.tile;
+    }
+
+    /**
+     * @return the patterns of the pattern cards in this network that make @param key
+     */
+    public List<CraftingPattern> getPatterns(ItemStackKey key) {
+        return getPatternSnapshot().getOrDefault(key, Collections.emptyList());
+    }
+
+    /**
+     * @return the patterns of every pattern card in this network, by what they make, rebuilding them from the cards if they changed,
+     * or recipes were reloaded, since last time. A rebuild makes a new map, so what's returned never changes and can be read from any thread.
+     */
+    public Map<ItemStackKey, List<CraftingPattern>> getPatternSnapshot() {
+        RecipeManager recipes = world.getRecipeManager();
+        if (patternCache == null || patternRecipes != recipes) {
+            HashMap<ItemStackKey, List<CraftingPattern>> patterns = new HashMap<>();
+            for (ArrayList<ItemStack> cards : filterCardCache.values()) {
+                for (ItemStack card : cards) {
+                    if (!(card.getItem() instanceof CardPattern)) continue;
+                    CraftingPattern pattern = CraftingPattern.fromCard(card, world);
+                    if (pattern != null)
+                        patterns.computeIfAbsent(pattern.getOutputKey(), k -> new ArrayList<>()).add(pattern);
+                }
+            }
+            patterns.replaceAll((k, list) -> Collections.unmodifiableList(list));
+            patternCache = patterns;
+            patternRecipes = recipes;
+            patternVersion++;
         }
-        return null;
+        return Collections.unmodifiableMap(patternCache);
+    }
+
+    public int getPatternVersion() {
+        getPatternSnapshot(); //Bring it up to date first, so a stale cache doesn't look current
+        return patternVersion;
+    }
+
+    /**
+     * @return a copy of everything the providers hold, less what crafting jobs have set aside, for planning new crafts from
+     */
+    public Object2IntOpenHashMap<ItemStackKey> getCraftingStock() {
+        itemIndex.refresh();
+        Object2IntOpenHashMap<ItemStackKey> stock = new Object2IntOpenHashMap<>(itemIndex.getTotals());
+        for (Object2IntMap.Entry<ItemStackKey> reserved : craftingScheduler.getReserved().object2IntEntrySet()) {
+            stock.addTo(reserved.getKey(), -reserved.getIntValue());
+        }
+        return stock;
+    }
+
+    /**
+     * @return how many of @param key the providers hold
+     */
+    public int getNetworkCount(ItemStackKey key) {
+        itemIndex.refresh();
+        return itemIndex.getTotals().getInt(key);
+    }
+
+    /**
+     * Ask for @param stack, sized to how many are wanted, to be crafted from what the network has and the pattern cards in it,
+     * and delivered to the crafting station at @param destination. The plan is worked out in the background, see CraftingScheduler.
+     * The @param player, if any, is told when the queue is full, and later how it went.
+     *
+     * @return if it was accepted
+     */
+    public boolean requestCraft(ItemStack stack, BlockPos destination, @Nullable ServerPlayerEntity player) {
+        if (stack.isEmpty()) return false;
+        if (getPatterns(ItemStackKey.of(stack)).isEmpty()) return false; //Nothing in the network knows how to make it
+        if (craftingScheduler.request(stack, destination, player == null ? null : player.getUniqueID()) == -1) {
+            if (player != null)
+                player.sendStatusMessage(new TranslationTextComponent("message.logisticslasers.craftingqueuefull", stack.getCount(), stack.getDisplayName()), false);
+            return false;
+        }
+        markDirty(); //Requests are saved with the controller
+        return true;
+    }
+
+    /**
+     * @return if the node at @param pos is an inventory node, used to pick between stocker and crafting station RF costs
+     */
+    public boolean isInventoryNode(BlockPos pos) {
+        NodeHandle handle = getNodeHandle(pos);
+        return handle != null && handle.isInventoryNode();
     }
 
     /**
@@ -452,7 +778,7 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
      * @return a list of possible destinations
      */
     public ArrayList<BlockPos> findDestinationForItemstack(ItemStack itemStack) {
-        ItemStackKey key = new ItemStackKey(itemStack);
+        ItemStackKey key = ItemStackKey.of(itemStack);
         if (inserterCache.containsKey(key)) {
             return inserterCache.get(key);
         }
@@ -477,7 +803,7 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
      * @return a list of possible destinations
      */
     public ArrayList<BlockPos> findProviderForItemstack(ItemStack itemStack) {
-        ItemStackKey key = new ItemStackKey(itemStack);
+        ItemStackKey key = ItemStackKey.of(itemStack);
         if (providerCache.containsKey(key)) {
             return providerCache.get(key);
         }
@@ -517,12 +843,17 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
      * @return how many items fit
      */
     public int testInsertToInventory(IItemHandler destitemHandler, BlockPos toPos, ItemStack stack) {
+        int fit = destinationCapacity.getFit(toPos, destitemHandler, stack, getItemStacksInFlight(toPos), world.getGameTime());
+        if (fit >= 0) return fit; //Answered from the destination's free space summary, no need to simulate
+        ItemHandlerAdapter adapter = getAttachedAdapter(toPos); //The node's cached one, unless we were handed some other inventory
+        if (adapter == null || adapter.getHandler() != destitemHandler)
+            adapter = ItemHandlerAdapter.of(destitemHandler);
         ItemHandlerUtil.InventoryInfo tempInventory = new ItemHandlerUtil.InventoryInfo(destitemHandler); //tempInventory tracks all changes that in-route stacks would make
         for (ItemStack inFlightStack : getItemStacksInFlight(toPos)) { //Add all in-flight stacks to the temp inventory
-            ItemHandlerUtil.simulateInsert(destitemHandler, tempInventory, inFlightStack, inFlightStack.getCount(), true);
+            ItemHandlerUtil.simulateInsert(adapter, tempInventory, inFlightStack, inFlightStack.getCount(), true);
         }
         //At this point in the code, the tempInventory represents what the toPos chest will have INCLUDING all in-flight stacks
-        int remainder = ItemHandlerUtil.simulateInsert(destitemHandler, tempInventory, stack, stack.getCount(), false); //Returns the amount of items that don't fit
+        int remainder = ItemHandlerUtil.simulateInsert(adapter, tempInventory, stack, stack.getCount(), false); //Returns the amount of items that don't fit
         int count = stack.getCount() - remainder; //How many items will fit in the inventory
         return count;
     }
@@ -537,6 +868,7 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
         if (stack.isEmpty()) return stack.getCount(); //No empty stacks!
 
         IItemHandler sourceitemHandler = getAttachedInventory(fromPos);
+        int bounces = slot == -1 ? overflowBuffer.getBounces(stack) : 0; //Items leaving the internal inventory remember how often they've bounced
         ArrayList<BlockPos> possibleDestinations = new ArrayList<>(findDestinationForItemstack(stack)); //Find a list of possible destinations
         possibleDestinations.remove(fromPos); //Remove the block its coming from, no self-sending!
         int stackSize = stack.getCount(); //The number of items we are extracting
@@ -556,7 +888,7 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
             if (slot == -1) { //Slot -1 indicates this method was called by the controller's internal inventory.
                 rfCost = count * Config.CONTROLLER_INTERNAL_REMOVE.get();
                 if (useEnergy(rfCost))
-                    extractedStack = storedItems.removeStack(stack, count);
+                    extractedStack = overflowBuffer.remove(stack, count);
                 else
                     return stackSize;
             } else {
@@ -566,9 +898,12 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
                 else
                     return stackSize;
             }
-            boolean successfullySent = transferItemStack(fromPos, toPos, extractedStack);
+            boolean successfullySent = transferItemStack(fromPos, toPos, extractedStack, bounces);
             if (!successfullySent) { //Attempt to send items
-                ItemHandlerHelper.insertItem(sourceitemHandler, extractedStack, false); //If failed for some reason, put back in inventory
+                if (slot == -1)
+                    overflowBuffer.insert(extractedStack, bounces, world.getGameTime()); //The controller has no attached inventory, so back into the internal one
+                else
+                    ItemHandlerHelper.insertItem(sourceitemHandler, extractedStack, false); //If failed for some reason, put back in inventory
                 energyStorage.receiveEnergy(rfCost, false); //Refund your RF cost
             } else {
                 stackSize -= extractedStack.getCount();
@@ -579,6 +914,61 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
         return stackSize;
     }
 
+    /**
+     * Send @param stack, which isn't in any inventory - like a crafting station's freshly crafted items - from @param fromPos to wherever
+     * the inserters want it. It's sent a stack at a time, each split across as few destinations as will take it.
+     *
+     * @return what couldn't be sent anywhere
+     */
+    public ItemStack exportItemStack(ItemStack stack, BlockPos fromPos) {
+        if (stack.isEmpty()) return stack;
+        ArrayList<BlockPos> possibleDestinations = new ArrayList<>(findDestinationForItemstack(stack)); //Find a list of possible destinations
+        possibleDestinations.remove(fromPos); //Remove the block its coming from, no self-sending!
+        if (possibleDestinations.isEmpty()) return stack; //If we can't send this item anywhere, stop processing
+
+        ItemStack remaining = stack.copy();
+        for (BlockPos toPos : possibleDestinations) { //Loop through all possible destinations
+            IItemHandler destitemHandler = getAttachedInventory(toPos); //Get the inventory handler of the block the inventory node is facing
+            if (destitemHandler == null) continue; //If its empty, move onto the next inserter
+            while (!remaining.isEmpty()) {
+                ItemStack chunk = ItemHandlerUtil.size(remaining, Math.min(remaining.getCount(), remaining.getMaxStackSize()));
+                int count = testInsertToInventory(destitemHandler, toPos, chunk); //Find out how many items can fit in the destination inventory, including inflight items
+                if (count == 0) break; //If none, try elsewhere!
+                int rfCost = count * Config.CONTROLLER_EXTRACTOR.get();
+                if (!useEnergy(rfCost))
+                    return remaining;
+                ItemStack sentStack = remaining.split(count);
+                if (!transferItemStack(fromPos, toPos, sentStack)) { //Attempt to send items
+                    remaining.grow(sentStack.getCount()); //If failed for some reason, keep them
+                    energyStorage.receiveEnergy(rfCost, false); //Refund your RF cost
+                    break;
+                }
+            }
+            if (remaining.isEmpty()) break;
+        }
+        return remaining;
+    }
+
+    /**
+     * @return how many of @param stack, up to its count, exportItemStack could send from @param fromPos right now -
+     * what the destinations have room for, including items already on their way, and what the RF stored pays for
+     */
+    public int getExportRoom(ItemStack stack, BlockPos fromPos) {
+        if (stack.isEmpty()) return 0;
+        int room = 0;
+        for (BlockPos toPos : findDestinationForItemstack(stack)) {
+            if (toPos.equals(fromPos)) continue; //No self-sending!
+            IItemHandler destitemHandler = getAttachedInventory(toPos);
+            if (destitemHandler == null) continue;
+            room += testInsertToInventory(destitemHandler, toPos, ItemHandlerUtil.size(stack, stack.getCount() - room));
+            if (room >= stack.getCount()) break;
+        }
+        int cost = Config.CONTROLLER_EXTRACTOR.get();
+        if (cost > 0)
+            room = Math.min(room, energyStorage.getEnergyStored() / cost);
+        return room;
+    }
+
     /**
      * Given a @param ingredient, find providers that offer it and send to @param toPos
      * Retrieve from multiple providers if necessary
@@ -586,23 +976,21 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
      * @return whether or not we succeeded
      */
     public boolean findIngredient(Ingredient ingredient, BlockPos toPos) {
-        if (ingredientCache.containsKey(ingredient)) { //Check the ingredientCache first
-            BlockPos providerPos = ingredientCache.get(ingredient);
-            if (provideIngredient(ingredient, toPos, providerPos)) {
-                return true;
-            } else {
-                ingredientCache.remove(ingredient);
+        itemIndex.refresh();
+        Object2IntOpenHashMap<BlockPos> providerCounts = new Object2IntOpenHashMap<>(); //Every provider holding something that matches, and how many they hold
+        for (ItemStackKey key : itemIndex.getMatchingKeys(ingredient)) {
+            for (Object2IntMap.Entry<BlockPos> entry : itemIndex.getProviderCounts(key).object2IntEntrySet()) {
+                providerCounts.addTo(entry.getKey(), entry.getIntValue());
             }
         }
-
-        List<BlockPos> possibleProviders = new ArrayList(providerNodes); //Find a list of possible Providers. We can't use the cache lookup here because of NBT, etc.
-        possibleProviders.remove(toPos); //Remove this chest
-        if (possibleProviders.isEmpty()) return false; //If nothing can provide to here, stop working
-        for (BlockPos providerPos : possibleProviders) { //Loop through all possible Providers
-            if (provideIngredient(ingredient, toPos, providerPos)) {
-                ingredientCache.put(ingredient, providerPos);
+        providerCounts.removeInt(toPos); //Remove this chest
+        List<BlockPos> possibleProviders = new ArrayList<>(providerCounts.keySet());
+        //The most stocked first, and the nearest of those
+        possibleProviders.sort(Comparator.comparingInt((BlockPos providerPos) -> -providerCounts.getInt(providerPos))
+                .thenComparingDouble(providerPos -> providerPos.distanceSq(toPos)));
+        for (BlockPos providerPos : possibleProviders) {
+            if (provideIngredient(ingredient, toPos, providerPos))
                 return true;
-            }
         }
         return false;
     }
@@ -612,29 +1000,70 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
         IItemHandler providerItemHandler = getAttachedInventory(providerPos); //Get the inventory handler of the block the inventory node is facing
         if (providerItemHandler == null) return false; //If its empty, move onto the next provider
 
-        ItemStack simulated = ItemHandlerUtil.extractIngredient(providerItemHandler, ingredient, true); //Pretend to extract the stack from the provider's inventory
+        IntList slots = providerSlots.getIngredientSlots(providerPos, providerItemHandler, ingredient); //Only the slots that hold something matching
+        ItemStack simulated = ItemHandlerUtil.extractIngredient(providerItemHandler, ingredient, true, slots); //Pretend to extract the stack from the provider's inventory
 
         if (simulated.getCount() == 0) {
-            return false; //If the stack we removed has zero items in it check another provider
-        }
-        TileEntity te = world.getTileEntity(toPos);
-        int rfBaseCost = (te instanceof InventoryNodeTile) ? Config.CONTROLLER_STOCKER.get() : Config.CRAFTING_STATION_REQUEST.get();
+            if (!indexHoldsIngredient(providerPos, ingredient))
+                return false; //If the stack we removed has zero items in it check another provider
+            //The network index says it's in there, so the slot index may be out of date - hoppers and players move things too - look again properly
+            providerSlots.invalidate(providerPos);
+            slots = providerSlots.getIngredientSlots(providerPos, providerItemHandler, ingredient);
+            simulated = ItemHandlerUtil.extractIngredient(providerItemHandler, ingredient, true, slots);
+            if (simulated.getCount() == 0)
+                return false; //If the stack we removed has zero items in it check another provider
+        }
+        int rfBaseCost = isInventoryNode(toPos) ? Config.CONTROLLER_STOCKER.get() : Config.CRAFTING_STATION_REQUEST.get();
         ItemStack extractedStack;
         if (useEnergy(rfBaseCost))
-            extractedStack = ItemHandlerUtil.extractIngredient(providerItemHandler, ingredient, false); //Actually remove the items this time
+            extractedStack = ItemHandlerUtil.extractIngredient(providerItemHandler, ingredient, false, slots); //Actually remove the items this time
         else {
             return false;
         }
         successfullySent = transferItemStack(providerPos, toPos, extractedStack);
         if (!successfullySent) { //Attempt to send items
             ItemHandlerHelper.insertItem(providerItemHandler, extractedStack, false); //If failed for some reason, put back in inventory
+            providerSlots.invalidate(providerPos); //Maybe not the slot it came from
             return false;
         } else {
-            ingredientCache.put(ingredient, providerPos);
             return true;
         }
     }
 
+    /**
+     * @return if the network index has the provider at @param providerPos holding anything that matches @param ingredient
+     */
+    private boolean indexHoldsIngredient(BlockPos providerPos, Ingredient ingredient) {
+        for (ItemStackKey key : itemIndex.getMatchingKeys(ingredient)) {
+            if (itemIndex.getProviderCount(providerPos, key) > 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Given a @param ingredient, send @param count matching items to @param toPos, taking the most stocked matching items first,
+     * in as few full stack transfers as the providers allow
+     *
+     * @return how many items we couldn't source
+     */
+    public int provideIngredientToPos(Ingredient ingredient, int count, BlockPos toPos) {
+        itemIndex.refresh();
+        Object2IntMap<ItemStackKey> totals = itemIndex.getTotals();
+        List<ItemStack> candidates = new ArrayList<>();
+        for (ItemStackKey key : itemIndex.getMatchingKeys(ingredient)) {
+            candidates.add(ItemHandlerUtil.size(itemIndex.getPrototype(key), totals.getInt(key)));
+        }
+        candidates.sort(Comparator.comparingInt(ItemStack::getCount).reversed());
+        for (ItemStack candidate : candidates) {
+            if (count <= 0) break;
+            int requested = Math.min(count, candidate.getCount());
+            ItemStack missing = provideItemStacksToPos(ItemHandlerUtil.size(candidate, requested), toPos);
+            count -= requested - missing.getCount();
+        }
+        return Math.max(count, 0);
+    }
+
     /**
      * Given a @param stack, find providers that offer it and send to @param toPos
      * Retrieve from multiple providers if necessary
@@ -643,28 +1072,40 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
      */
     public ItemStack provideItemStacksToPos(ItemStack stack, BlockPos toPos) {
         boolean successfullySent = false;
-        TileEntity te = world.getTileEntity(toPos);
-        int rfBaseCost = (te instanceof InventoryNodeTile) ? Config.CONTROLLER_STOCKER.get() : Config.CRAFTING_STATION_REQUEST.get();
+        int rfBaseCost = isInventoryNode(toPos) ? Config.CONTROLLER_STOCKER.get() : Config.CRAFTING_STATION_REQUEST.get();
         ArrayList<BlockPos> possibleProviders = new ArrayList<>(findProviderForItemstack(stack)); //Find a list of possible Providers
         possibleProviders.remove(toPos); //Remove this chest
+        itemIndex.refresh();
+        ItemStackKey key = ItemStackKey.find(stack);
+        //Only the providers the network index says actually hold some, the cards alone would have us rescanning every empty one
+        possibleProviders.removeIf(providerPos -> key == null || itemIndex.getProviderCount(providerPos, key) <= 0);
         if (possibleProviders.isEmpty()) return stack; //If nothing can provide to here, stop working
         int desiredAmt = stack.getCount();
         for (BlockPos providerPos : possibleProviders) { //Loop through all possible Providers
-            IItemHandler providerItemHandler = getAttachedInventory(providerPos); //Get the inventory handler of the block the inventory node is facing
-            if (providerItemHandler == null) continue; //If its empty, move onto the next provider
+            ItemHandlerAdapter providerAdapter = getAttachedAdapter(providerPos); //The inventory the inventory node is facing, through the node's cached adapter
+            if (providerAdapter == null) continue; //If its empty, move onto the next provider
+            IItemHandler providerItemHandler = providerAdapter.getHandler();
 
+            IntList slots = providerSlots.getSlots(providerPos, providerItemHandler, stack); //Only the slots that hold this item
+            boolean rescanned = false;
             do {
-                if (stack.getCount() > stack.getMaxStackSize()) stack.setCount(stack.getMaxStackSize());
-                ItemStack simulated = ItemHandlerUtil.extractItem(providerItemHandler, stack, true); //Pretend to extract the stack from the provider's inventory
+                stack.setCount(Math.min(desiredAmt, stack.getMaxStackSize())); //Up to a full stack per transfer, but never more than we still need
+                ItemStack simulated = ItemHandlerUtil.extractItem(providerAdapter, stack, true, slots); //Pretend to extract the stack from the provider's inventory
 
                 if (simulated.getCount() == 0) {
-                    break; //If the stack we removed has zero items in it check another provider
+                    if (rescanned)
+                        break; //If the stack we removed has zero items in it check another provider
+                    //The index may be out of date - hoppers and players move things too - so look again properly before giving up on this provider
+                    providerSlots.invalidate(providerPos);
+                    slots = providerSlots.getSlots(providerPos, providerItemHandler, stack);
+                    rescanned = true;
+                    continue;
                 }
                 int extractCount = simulated.getCount(); //How many items were successfully removed from the inventory
                 stack.setCount(extractCount);
                 ItemStack extractedStack;
                 if (useEnergy(rfBaseCost * stack.getCount()))
-                    extractedStack = ItemHandlerUtil.extractItem(providerItemHandler, stack, false); //Actually remove the items this time
+                    extractedStack = ItemHandlerUtil.extractItem(providerAdapter, stack, false, slots); //Actually remove the items this time
                 else {
                     stack.setCount(desiredAmt);
                     return stack;
@@ -672,6 +1113,7 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
                 successfullySent = transferItemStack(providerPos, toPos, extractedStack);
                 if (!successfullySent) { //Attempt to send items
                     ItemHandlerHelper.insertItem(providerItemHandler, extractedStack, false); //If failed for some reason, put back in inventory
+                    providerSlots.invalidate(providerPos); //Maybe not the slot it came from
                     break;
                 } else {
                     desiredAmt -= extractedStack.getCount();
@@ -695,7 +1137,7 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
     }
 
     public boolean canExtractItemFromPos(ItemStack itemStack, BlockPos fromPos) {
-        ItemStackKey key = new ItemStackKey(itemStack);
+        ItemStackKey key = ItemStackKey.of(itemStack);
         if (extractorCache.containsKey(key)) {
             return extractorCache.get(key).contains(fromPos);
         }
@@ -718,21 +1160,22 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
      * If successful - do not increment current processing slot, if not ++
      */
     public void attemptExtract(BlockPos fromPos) {
-        IItemHandler sourceitemHandler = getAttachedInventory(fromPos); //Get the inventory handler of the block the inventory node is facing
-        if (sourceitemHandler == null) return; //If its empty, return false
+        ItemHandlerAdapter source = getAttachedAdapter(fromPos); //Get the inventory handler of the block the inventory node is facing
+        if (source == null) return; //If its empty, return false
 
         int slot = invNodeSlot.getOrDefault(fromPos, 0);
-        ItemStack stackInSlot = sourceitemHandler.getStackInSlot(slot);
+        if (slot >= source.getSlots()) slot = 0; //The inventory shrank
+        ItemStack stackInSlot = source.peek(slot);
         if (!stackInSlot.isEmpty()) {
             if (canExtractItemFromPos(stackInSlot, fromPos)) {
-                int extractAmt = Math.min(extractorAmounts.get(fromPos, new ItemStackKey(stackInSlot)), stackInSlot.getCount());
-                ItemStack stack = sourceitemHandler.extractItem(slot, extractAmt, true); //Pretend to remove the x items from the stack we found
-                if (!stack.isEmpty())
-                    if (extractItemFromPos(stack, fromPos, slot) < extractAmt) //if we extracted SOMETHING
+                int extractAmt = Math.min(extractorAmounts.get(fromPos, ItemStackKey.of(stackInSlot)), stackInSlot.getCount());
+                int available = source.extractable(slot, stackInSlot, extractAmt); //Pretend to remove the x items from the stack we found
+                if (available > 0)
+                    if (extractItemFromPos(ItemHandlerUtil.size(stackInSlot, available), fromPos, slot) < extractAmt) //if we extracted SOMETHING
                         return;
             }
         }
-        incrementInvNodeSlot(fromPos, sourceitemHandler.getSlots());
+        incrementInvNodeSlot(fromPos, source.getSlots());
     }
 
     /**
@@ -782,16 +1225,12 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
         }
     }
 
+    /**
+     * Send a few of the kinds of item in the internal inventory back out into the network, see OverflowBuffer
+     */
     public void handleInternalInventory() {
-        ArrayList<ItemStack> stored = new ArrayList(storedItems.getItemCounts().values());
-        boolean success = false;
-        for (ItemStack stack : stored) {
-            int amt = stack.getCount();
-            int remaining = extractItemFromPos(stack, this.pos, -1);
-            if (remaining < amt)
-                success = true;
-        }
-        if (success)
+        if (overflowBuffer.isEmpty()) return;
+        if (overflowBuffer.drain(world.getGameTime(), Config.CONTROLLER_BUFFER_DRAIN_PER_TICK.get()))
             markDirtyClient();
     }
 
@@ -800,11 +1239,59 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
      */
     public void handleExtractors() {
         if (inserterNodes.size() == 0) return; //If theres nowhere to put items, nope out!
+        if (overflowBuffer.isFull()) return; //The network is backed up, so don't take on any more until the internal inventory drains
         for (BlockPos fromPos : extractorNodes) { //Loop through all the extractors!
             attemptExtract(fromPos);
         }
     }
 
+    /**
+     * Keep the crafting station at @param stationPos stocked with enough ingredients for its prefetch count of crafts of the recipe in its grid.
+     * Like a stocker, only the deficit is requested - what's in the inventory or already on the way counts, each item towards the first
+     * ingredient it matches that still needs some, so one stack isn't counted twice.
+     */
+    public void attemptPrefetch(BlockPos stationPos, CraftingStationTile station) {
+        ICraftingRecipe recipe = station.getPrefetchRecipe();
+        if (recipe == null) return;
+        Object2IntLinkedOpenHashMap<Ingredient> wanted = new Object2IntLinkedOpenHashMap<>(); //Shaped recipes use the same Ingredient for every slot with the same key
+        for (Ingredient ingredient : recipe.getIngredients()) {
+            if (!ingredient.hasNoMatchingItems())
+                wanted.addTo(ingredient, station.getPrefetchCrafts());
+        }
+        ItemStackHandler handler = station.getInventoryStacks();
+        List<ItemStack> have = new ArrayList<>(getItemStacksInFlight(stationPos));
+        for (int slot = 0; slot < handler.getSlots(); slot++) {
+            if (!handler.getStackInSlot(slot).isEmpty())
+                have.add(handler.getStackInSlot(slot));
+        }
+        for (ItemStack stack : have) {
+            int count = stack.getCount();
+            for (Object2IntMap.Entry<Ingredient> entry : wanted.object2IntEntrySet()) {
+                if (count == 0) break;
+                if (entry.getIntValue() == 0 || !entry.getKey().test(stack)) continue;
+                int used = Math.min(count, entry.getIntValue());
+                entry.setValue(entry.getIntValue() - used);
+                count -= used;
+            }
+        }
+        for (Object2IntMap.Entry<Ingredient> entry : wanted.object2IntEntrySet()) {
+            if (entry.getIntValue() <= 0) continue;
+            //Before we even look for the items, lets see if they'll fit here first!
+            int count = testInsertToInventory(handler, stationPos, ItemHandlerUtil.size(entry.getKey().getMatchingStacks()[0], entry.getIntValue()));
+            if (count > 0)
+                provideIngredientToPos(entry.getKey(), count, stationPos);
+        }
+    }
+
+    public void handlePrefetch() {
+        if (providerNodes.size() == 0) return; //If theres nowhere to get items from, nope out!
+        for (BlockPos crafterPos : crafterNodes) {
+            CraftingStationTile station = getCraftingStation(crafterPos);
+            if (station != null && station.getPrefetchCrafts() > 0)
+                attemptPrefetch(crafterPos, station);
+        }
+    }
+
     /**
      * Go through each of the stockerNodes and find a provider offering the item - transfer it to this inventory if found.
      */
@@ -817,12 +1304,36 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
 
     /**
      * If a @param stack attempts to insert into an already full inventory, we need to re-route it. From the position it failed to insert to (@param lostAt) try to send it to another
-     * Valid inserter
+     * Valid inserter. Only the first time though - after that it goes back to the controller and waits out a backoff that doubles every time it bounces (@param bounces so far),
+     * and once it's bounced often enough it's quarantined straight into the controller without travelling at all.
      *
      * @return the remains of the itemstack that could not be inserted anywhere else in the network
      */
-    public ItemStack handleLostStack(ItemStack stack, BlockPos lostAt) {
+    public ItemStack handleLostStack(ItemStack stack, BlockPos lostAt, int bounces) {
         //System.out.println("Stack Lost");
+        bounces++;
+        bouncedStacks++;
+        if (bounces >= Config.LOST_STACK_QUARANTINE_BOUNCES.get()) {
+            overflowBuffer.insert(stack.split(stack.getCount()), bounces, world.getGameTime());
+            markDirtyClient();
+            return stack;
+        }
+        if (bounces == 1)
+            rerouteLostStack(stack, lostAt, bounces);
+        if (stack.getCount() > 0) {
+            requeuedStacks++;
+            ItemStack extractedStack = stack.split(stack.getCount());
+            if (!transferItemStack(lostAt, this.pos, extractedStack, bounces)) { //If we failed to send the stack to the remote destination, store directly in controller.
+                insertIntoController(extractedStack, bounces);
+            }
+        }
+        return stack;
+    }
+
+    /**
+     * Try to send the lost @param stack from @param lostAt to any other destination with room for it, shrinking it by however many were sent
+     */
+    private void rerouteLostStack(ItemStack stack, BlockPos lostAt, int bounces) {
         for (BlockPos toPos : findDestinationForItemstack(stack)) { //Start looping through the inserters
             IItemHandler destitemHandler = getAttachedInventory(toPos); //Get the inventory handler of the block the inventory node is facing
             if (destitemHandler == null) continue; //If its empty, move onto the next inserter
@@ -833,20 +1344,13 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
 
             int count = stack.getCount() - simulated.getCount(); //If we had a full stack of 64 items, but only 32 fit into the chest, get the appropriate amount
             ItemStack extractedStack = stack.split(count);
-            if (!transferItemStack(lostAt, toPos, extractedStack)) { //Attempt to send items
+            if (!transferItemStack(lostAt, toPos, extractedStack, bounces)) { //Attempt to send items
                 stack.grow(count); //If failed for some reason, put back into the stack
             } else {
                 if (stack.isEmpty())
                     break; //If we successfully sent items to this inserter, stop finding inserters and move onto the next extractor.
             }
         }
-        if (stack.getCount() > 0) {
-            ItemStack extractedStack = stack.split(stack.getCount());
-            if (!transferItemStack(lostAt, this.pos, extractedStack)) { //If we failed to send the stack to the remote destination, store directly in controller.
-                insertIntoController(extractedStack);
-            }
-        }
-        return stack;
     }
 
 
@@ -856,36 +1360,41 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
      * @return if this was successful
      */
     public boolean transferItemStack(BlockPos fromPos, BlockPos toPos, ItemStack itemStack) {
+        return transferItemStack(fromPos, toPos, itemStack, 0);
+    }
+
+    /**
+     * As above, for items that have already bounced off full destinations @param bounces times
+     */
+    public boolean transferItemStack(BlockPos fromPos, BlockPos toPos, ItemStack itemStack, int bounces) {
         ticksPerBlock = 4;
-        TileEntity te = world.getTileEntity(fromPos);
-        List<BlockPos> route;
-        //if (!(te instanceof InventoryNodeTile) && !(te instanceof CraftingStationTile)) return false;
-        if (te instanceof InventoryNodeTile)
-            route = ((InventoryNodeTile) te).getRouteTo(toPos);
-        else if (te instanceof CraftingStationTile)
-            route = ((CraftingStationTile) te).getRouteTo(toPos);
-        else if (te instanceof ControllerTile)
-            route = getRouteTo(toPos);
-        else
-            return false;
+        NodeHandle fromHandle = getNodeHandle(fromPos);
+        if (fromHandle == null || fromHandle.kind == NodeHandle.NodeKind.BASIC) return false; //Items only leave from inventories, crafters and the controller
+        List<BlockPos> route = fromHandle.tile.getRouteTo(toPos);
+        itemIndex.markDirty(fromPos); //If this came out of a provider, its counts changed
         if (route == null || route.size() <= 1) {
             return false;
         }
+        overflowBuffer.onCapacityChanged(fromPos); //Items are leaving, so there's room for something stuck in the internal inventory
+        destinationCapacity.invalidate(fromPos);
 
         long tempGameTime = world.getGameTime() + 1;
         ControllerTask task;
         ControllerTask parentTask = new ControllerTask(fromPos, toPos, ControllerTask.TaskType.INSERT, itemStack, null, tempGameTime); //Create a parent task, this isn't executed, but is used to track items in flight
+        parentTask.bounces = bounces;
         UUID parentGuid = parentTask.guid;
         ArrayList<ControllerTask> taskArrayList = new ArrayList<>();
         for (int r = 0; r < route.size(); r++) {
             if (r == route.size() - 1) { //This is the last step of the route, so insert into the attached inventory
                 task = new ControllerTask(route.get(r - 1), route.get(r), ControllerTask.TaskType.INSERT, itemStack, parentGuid, tempGameTime);
+                task.bounces = bounces;
                 taskList.add(task);
                 taskArrayList.add(task);
             } else { //This is not the last step of the route, so schedule particle spawning
                 BlockPos from = route.get(r);
                 BlockPos to = route.get(r + 1);
                 task = new ControllerTask(from, to, ControllerTask.TaskType.PARTICLE, itemStack, parentGuid, tempGameTime);
+                task.bounces = bounces;
                 taskList.add(task);
                 taskArrayList.add(task);
                 Vector3d fromVec = new Vector3d(from.getX(), from.getY(), from.getZ());
@@ -901,11 +1410,100 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
 
     public boolean canExecuteTask(ControllerTask task) {
         if (task.isCancelled) return false;
-        if (!world.isAreaLoaded(task.fromPos, 3) || !(world.isAreaLoaded(task.toPos, 3)) || !(world.isAreaLoaded(this.pos, 3))) {
-            return false;
-        }
         if (task.scheduledTime > world.getGameTime()) return false;
-        return true;
+        return findUnloadedChunk(task) == ALL_CHUNKS_LOADED;
+    }
+
+    /**
+     * Checks whether the chunk at @param chunkX, @param chunkZ is loaded, remembering the answer for the rest of this tick
+     * Most tasks of a network share a handful of chunks, so this saves a lot of chunk map lookups
+     */
+    @SuppressWarnings("deprecation")
+    public boolean isChunkLoadedCached(int chunkX, int chunkZ) {
+        long gameTime = world.getGameTime();
+        if (loadedChunksTime != gameTime) {
+            loadedChunks.clear();
+            loadedChunksTime = gameTime;
+        }
+        long chunk = ChunkPos.asLong(chunkX, chunkZ);
+        if (loadedChunks.containsKey(chunk))
+            return loadedChunks.get(chunk);
+        boolean loaded = world.chunkExists(chunkX, chunkZ);
+        loadedChunks.put(chunk, loaded);
+        return loaded;
+    }
+
+    /**
+     * @return if the chunk containing @param pos is loaded, without loading it
+     */
+    public boolean isLoaded(BlockPos pos) {
+        return isChunkLoadedCached(pos.getX() >> 4, pos.getZ() >> 4);
+    }
+
+    /**
+     * Same as world.isAreaLoaded(@param pos, TASK_AREA_RADIUS), but using the per tick chunk cache
+     *
+     * @return the first unloaded chunk (see ChunkPos.asLong) found around @param pos, or ALL_CHUNKS_LOADED
+     */
+    public long findUnloadedChunk(BlockPos pos) {
+        for (int chunkX = (pos.getX() - TASK_AREA_RADIUS) >> 4; chunkX <= (pos.getX() + TASK_AREA_RADIUS) >> 4; chunkX++) {
+            for (int chunkZ = (pos.getZ() - TASK_AREA_RADIUS) >> 4; chunkZ <= (pos.getZ() + TASK_AREA_RADIUS) >> 4; chunkZ++) {
+                if (!isChunkLoadedCached(chunkX, chunkZ))
+                    return ChunkPos.asLong(chunkX, chunkZ);
+            }
+        }
+        return ALL_CHUNKS_LOADED;
+    }
+
+    /**
+     * @return the first unloaded chunk a @param task needs - around either end of it, or around the controller - or ALL_CHUNKS_LOADED
+     */
+    public long findUnloadedChunk(ControllerTask task) {
+        long chunk = findUnloadedChunk(task.fromPos);
+        if (chunk == ALL_CHUNKS_LOADED)
+            chunk = findUnloadedChunk(task.toPos);
+        if (chunk == ALL_CHUNKS_LOADED)
+            chunk = findUnloadedChunk(this.pos);
+        return chunk;
+    }
+
+    /**
+     * Moves a @param task out of the taskList into the wait queue for the unloaded @param chunk, so it costs nothing until the chunk loads
+     */
+    public void parkTask(ControllerTask task, long chunk) {
+        taskList.remove(task);
+        ArrayList<ControllerTask> waitQueue = parkedTasks.get(chunk);
+        if (waitQueue == null) {
+            waitQueue = new ArrayList<>();
+            parkedTasks.put(chunk, waitQueue);
+            ChunkWaitTracker.waitFor(world, chunk, this.pos);
+        }
+        waitQueue.add(task);
+    }
+
+    /**
+     * Moves the tasks waiting on chunks that have loaded back into the taskList
+     * Chunk load events do the waking, every 5 seconds we also double check in case one was missed
+     */
+    public void wakeParkedTasks() {
+        if (parkedTasks.isEmpty()) return;
+        LongSet wokenChunks = ChunkWaitTracker.pollWoken(world, this.pos);
+        if (wokenChunks != null) {
+            for (long chunk : wokenChunks) {
+                ArrayList<ControllerTask> waitQueue = parkedTasks.remove(chunk);
+                if (waitQueue != null)
+                    taskList.addAll(waitQueue);
+            }
+        }
+        if (world.getGameTime() % 100 == 0) {
+            parkedTasks.long2ObjectEntrySet().removeIf(entry -> {
+                long chunk = entry.getLongKey();
+                if (!isChunkLoadedCached(ChunkPos.getX(chunk), ChunkPos.getZ(chunk))) return false;
+                taskList.addAll(entry.getValue());
+                ChunkWaitTracker.stopWaiting(world, chunk, this.pos); //The load event was missed, so the tracker still has us down as waiting
+                return true;
+            });
+        }
     }
 
     public void removeTasksFromList() {
@@ -921,12 +1519,18 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
      * Handle all scheduled tasks due at (or before) the current gametime
      */
     public void handleTasks() {
+        wakeParkedTasks();
         Set<ControllerTask> temptaskList = new HashSet<>(taskList);
+        long gameTime = world.getGameTime();
         for (ControllerTask task : temptaskList) {
-            if (canExecuteTask(task)) {
-                executeTask(task);
-                task.complete();
+            if (task.isCancelled || task.scheduledTime > gameTime) continue; //Not due yet, no need to look at chunks
+            long unloadedChunk = findUnloadedChunk(task);
+            if (unloadedChunk != ALL_CHUNKS_LOADED) {
+                parkTask(task, unloadedChunk); //Wait for the chunk to load, rather than checking every tick
+                continue;
             }
+            executeTask(task);
+            task.complete();
         }
         removeTasksFromList();
     }
@@ -971,12 +1575,12 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
             ItemStack remainingStack = doParticles(task);
             if (!remainingStack.isEmpty()) {
                 cancelTask(task.parentGUID);
-                handleLostStack(remainingStack, task.toPos);
+                handleLostStack(remainingStack, task.toPos, task.bounces);
             }
         } else if (task.isInsert()) {
             ItemStack remainingStack = doInsert(task);
             if (!remainingStack.isEmpty()) {
-                handleLostStack(remainingStack, task.toPos);
+                handleLostStack(remainingStack, task.toPos, task.bounces);
             }
         } else if (task.isExtract()) {
 
@@ -984,27 +1588,43 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
     }
 
     /**
-     * Called by ExecuteTask - spawn particles from one node to another for transit
+     * Called by ExecuteTask - queue particles from one node to another for transit, they're sent to clients by sendItemFlows()
      */
     public ItemStack doParticles(ControllerTask task) {
-        TileEntity fromTE = world.getTileEntity(task.fromPos);
-        TileEntity toTE = world.getTileEntity(task.toPos);
-        if (!(fromTE instanceof NodeTileBase) || !(toTE instanceof NodeTileBase)) {
+        if (getNodeHandle(task.fromPos) == null || getNodeHandle(task.toPos) == null) {
             return task.itemStack;
         }
-        ItemFlowParticleData data = new ItemFlowParticleData(task.itemStack, task.toPos.getX() + 0.5, task.toPos.getY() + 0.5, task.toPos.getZ() + 0.5, ticksPerBlock);
-        ServerWorld serverWorld = (ServerWorld) world;
-        serverWorld.spawnParticle(data, task.fromPos.getX() + 0.5, task.fromPos.getY() + 0.5, task.fromPos.getZ() + 0.5, 8 * task.itemStack.getCount(), 0.1f, 0.1f, 0.1f, 0);
+        pendingFlows.add(new PacketItemFlowParticles.Flow(task.fromPos, task.toPos, ItemHandlerUtil.size(task.itemStack, 1), task.itemStack.getCount()));
         return ItemStack.EMPTY;
     }
 
+    /**
+     * Sends every item flow queued this tick to the players that can see it - one packet per player, no matter how many hops happened
+     */
+    public void sendItemFlows() {
+        if (pendingFlows.isEmpty()) return;
+        ServerChunkProvider chunkProvider = (ServerChunkProvider) world.getChunkProvider();
+        HashMap<ChunkPos, List<ServerPlayerEntity>> chunkPlayers = new HashMap<>(); //Most flows of a network share a handful of chunks, so only look up their trackers once
+        HashMap<ServerPlayerEntity, ArrayList<PacketItemFlowParticles.Flow>> playerFlows = new HashMap<>();
+        for (PacketItemFlowParticles.Flow flow : pendingFlows) {
+            List<ServerPlayerEntity> players = chunkPlayers.computeIfAbsent(new ChunkPos(flow.fromPos), chunkPos -> chunkProvider.chunkManager.getTrackingPlayers(chunkPos, false).collect(Collectors.toList()));
+            for (ServerPlayerEntity player : players) {
+                playerFlows.computeIfAbsent(player, p -> new ArrayList<>()).add(flow);
+            }
+        }
+        for (Map.Entry<ServerPlayerEntity, ArrayList<PacketItemFlowParticles.Flow>> entry : playerFlows.entrySet()) {
+            PacketHandler.sendTo(new PacketItemFlowParticles(entry.getValue(), ticksPerBlock), entry.getKey());
+        }
+        pendingFlows.clear();
+    }
+
     public boolean isStackValidForDestination(ItemStack stack, BlockPos pos) {
-        TileEntity te = world.getTileEntity(pos);
-        if (te instanceof CraftingStationTile)
-            return true;
-        if (te instanceof ControllerTile)
+        NodeHandle handle = getNodeHandle(pos);
+        if (handle == null)
+            return false;
+        if (handle.isCrafter() || handle.isController())
             return true;
-        if (te instanceof InventoryNodeTile) {
+        if (handle.isInventoryNode()) {
             for (ItemStack card : getInsertFilters(pos)) {
                 if (isStackValidForCard(card, stack))
                     return true;
@@ -1018,7 +1638,11 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
     }
 
     public void insertIntoController(ItemStack stack) {
-        storedItems.setCount(stack);
+        insertIntoController(stack, 0);
+    }
+
+    public void insertIntoController(ItemStack stack, int bounces) {
+        overflowBuffer.insert(stack, bounces, world.getGameTime());
         markDirtyClient();
     }
 
@@ -1029,8 +1653,8 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
      */
     public ItemStack doInsert(ControllerTask task) {
         if (!isStackValidForDestination(task.itemStack, task.toPos)) return task.itemStack;
-        if (world.getTileEntity(task.toPos) instanceof ControllerTile) {
-            insertIntoController(task.itemStack);
+        if (getNodeHandle(task.toPos).isController()) {
+            insertIntoController(task.itemStack, task.bounces);
             return ItemStack.EMPTY;
         }
         IItemHandler destitemHandler = getAttachedInventory(task.toPos);
@@ -1038,6 +1662,9 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
 
         ItemStack stack = task.itemStack;
         ItemStack postInsertStack = ItemHandlerHelper.insertItem(destitemHandler, stack, false);
+        itemIndex.markDirty(task.toPos); //If this went into a provider, its counts changed
+        destinationCapacity.onInserted(task.toPos, stack, stack.getCount() - postInsertStack.getCount(), !postInsertStack.isEmpty());
+        providerSlots.invalidate(task.toPos); //The items may have gone into slots the index doesn't know about
         return postInsertStack;
     }
 
@@ -1050,6 +1677,13 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
                 task.cancel();
             }
         }
+        for (ArrayList<ControllerTask> waitQueue : parkedTasks.values()) {
+            for (ControllerTask task : waitQueue) {
+                if (task.parentGUID == parentGUID) {
+                    task.cancel();
+                }
+            }
+        }
     }
 
 
@@ -1070,14 +1704,20 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
             }
             if (allNodes.size() == 0) return;
             if (!world.isBlockPowered(pos) && useEnergy(passiveRFCost)) { //Use our passive energy amount, if it fails don't process anything below this line
-                useEnergy(Config.CONTROLLER_INTERNAL.get() * storedItems.getTotalCount()); //Burn RF for stored items.
+                useEnergy((int) Math.min(Integer.MAX_VALUE, Config.CONTROLLER_INTERNAL.get() * overflowBuffer.getItems().getTotalCount())); //Burn RF for stored items.
                 handleInternalInventory();
                 handleExtractors();
                 if (world.getGameTime() % 100 == 0)
                     handleStockers(); //Stocking is somewhat expensive operation, so only do it every 5 seconds, rather than once a tick.
+                if (world.getGameTime() % Config.CRAFTING_TICK_INTERVAL.get() == 0) {
+                    craftingScheduler.tick();
+                    handlePrefetch();
+                }
 
             }
             handleTasks(); //We let tasks finish, even if the power runs out or redstone applied. This way items still reach their destination
+            sendItemFlows();
+            itemIndex.tick(Config.INDEX_SCAN_SLOTS_PER_TICK.get()); //Pick up changes made to provider inventories outside the network
         }
     }
 
@@ -1112,6 +1752,17 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
                     return energyStorage.getMaxEnergyStored() / 32;
                 case 2:
                     return passiveRFCost;
+                //Container data is sent as shorts, so the counters stop at Short.MAX_VALUE
+                case 3:
+                    return Math.min(bouncedStacks, Short.MAX_VALUE);
+                case 4:
+                    return Math.min(requeuedStacks, Short.MAX_VALUE);
+                case 5:
+                    return Math.min(overflowBuffer.getQuarantinedCount(), Short.MAX_VALUE);
+                case 6:
+                    return Math.min(craftingScheduler.getJobs().size() + craftingScheduler.getPlanningCount(), Short.MAX_VALUE);
+                case 7:
+                    return Math.min(craftingScheduler.getPendingCrafts(), Short.MAX_VALUE);
                 default:
                     throw new IllegalArgumentException("Invalid index: " + index);
             }
@@ -1124,7 +1775,7 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
 
         @Override
         public int size() {
-            return 3;
+            return 8;
         }
     };
 
@@ -1165,6 +1816,7 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
         }
 
         taskList.clear();
+        parkedTasks.clear(); //Parked tasks are saved with the rest, they'll park again on the next tick if their chunk still isn't loaded
         ListNBT tasks = tag.getList("tasks", Constants.NBT.TAG_COMPOUND);
         for (int i = 0; i < tasks.size(); i++) {
             ControllerTask task = new ControllerTask(tasks.getCompound(i));
@@ -1178,7 +1830,8 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
             }
         }
 
-        storedItems = new ItemHandlerUtil.InventoryCounts(tag.getList("storedItems", Constants.NBT.TAG_COMPOUND));
+        overflowBuffer.read(tag.getList("storedItems", Constants.NBT.TAG_COMPOUND));
+        craftingScheduler.read(tag.getList("craftingJobs", Constants.NBT.TAG_COMPOUND));
 
     }
 
@@ -1221,10 +1874,17 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
             CompoundNBT nbt = task.serialize();
             tasks.add(nbt);
         }
+        for (ArrayList<ControllerTask> waitQueue : parkedTasks.values()) {
+            for (ControllerTask task : waitQueue) {
+                CompoundNBT nbt = task.serialize();
+                tasks.add(nbt);
+            }
+        }
         tag.put("tasks", tasks);
 
-        ListNBT storedItem = storedItems.serialize();
+        ListNBT storedItem = overflowBuffer.serialize();
         tag.put("storedItems", storedItem);
+        tag.put("craftingJobs", craftingScheduler.serialize());
 
         //System.out.println("Writing");
         return super.write(tag);
@@ -1242,6 +1902,10 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
     @Override
     public void remove() {
         energy.invalidate();
+        if (world != null && !world.isRemote) {
+            ChunkWaitTracker.forget(world, this.pos);
+            craftingScheduler.cancelAll(); //Stop any plans still being worked out
+        }
         super.remove();
     }
 
@@ -1256,4 +1920,22 @@ public class ControllerTile extends NodeTileBase implements ITickableTileEntity,
         assert world != null;
         return new ControllerContainer(this, this.FETileData, i, playerInventory);
     }
+
+    /**
+     * What one player has been sent of this controller's item counts, so the next update only needs to contain the differences
+     */
+    private static class ItemCountsWatcher {
+        private Object2IntOpenHashMap<ItemStackKey> lastSent = new Object2IntOpenHashMap<>();
+        private int version = 0;
+        //Used instead when the network is too big to send, see sendItemViewPage
+        private boolean paged = false;
+        private String search = "";
+        private NetworkItemView.SortType sortType = NetworkItemView.SortType.COUNT;
+        private int page = 0;
+        private ResourceLocation recipeId = null;
+        private List<ItemStack> view = null;
+        private int viewVersion;
+        private String viewSearch;
+        private NetworkItemView.SortType viewSortType;
+    }
 }
@@ -3,9 +3,16 @@ package com.direwolf20.logisticslasers.common.tiles;
 import com.direwolf20.logisticslasers.common.blocks.ModBlocks;
 import com.direwolf20.logisticslasers.common.container.CraftingStationContainer;
 import com.direwolf20.logisticslasers.common.container.customhandler.CraftingStationHandler;
+import com.direwolf20.logisticslasers.common.network.packets.PacketSetGrid;
 import com.direwolf20.logisticslasers.common.tiles.basetiles.NodeTileBase;
+import com.direwolf20.logisticslasers.common.util.CraftingPattern;
 import com.direwolf20.logisticslasers.common.util.CraftingStationInventory;
 import com.direwolf20.logisticslasers.common.util.ItemHandlerUtil;
+import com.direwolf20.logisticslasers.common.util.ItemStackKey;
+import com.direwolf20.logisticslasers.common.util.RecipeCache;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.player.PlayerEntity;
@@ -15,12 +22,11 @@ import net.minecraft.inventory.container.Container;
 import net.minecraft.inventory.container.INamedContainerProvider;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.crafting.ICraftingRecipe;
-import net.minecraft.item.crafting.IRecipeType;
 import net.minecraft.item.crafting.Ingredient;
-import net.minecraft.item.crafting.RecipeManager;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.Direction;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.StringTextComponent;
 import net.minecraft.util.text.TranslationTextComponent;
@@ -37,10 +43,14 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class CraftingStationTile extends NodeTileBase implements INamedContainerProvider {
+    public static final int MAX_PREFETCH_CRAFTS = 64;
+
     /**
      * Last crafted crafting recipe
      */
@@ -52,6 +62,8 @@ public class CraftingStationTile extends NodeTileBase implements INamedContainer
     public final CraftingStationInventory fakecraftMatrix = new CraftingStationInventory(craftMatrixHandler, 3, 3); //Used to track items ACTUALLY used to do the craft
     public final ItemStackHandler craftResult = new ItemStackHandler(1);
     private LazyOptional<ItemStackHandler> inventory = LazyOptional.of(() -> new ItemStackHandler(27));
+    private int prefetchCrafts = 0; //How many crafts' worth of the grid's ingredients the controller keeps in the inventory, 0 for none
+    private boolean autoExport = false; //Send crafted items and leftovers like buckets into the network, instead of to the player
     //private Int2ObjectMap<Set<ItemStack>> alternateIngredients = new Int2ObjectOpenHashMap<>();
 
     public CraftingStationTile() {
@@ -67,13 +79,12 @@ public class CraftingStationTile extends NodeTileBase implements INamedContainer
 
         // assume empty unless we learn otherwise
         ItemStack result = ItemStack.EMPTY;
-        RecipeManager manager = this.world.getServer().getRecipeManager(); //Get the server recipe list i think
 
         // first, try the cached recipe
         ICraftingRecipe recipe = lastRecipe;
         // if it does not match, find a new recipe
         if (recipe == null || !recipe.matches(this.craftMatrix, this.world)) {
-            recipe = manager.getRecipe(IRecipeType.CRAFTING, this.craftMatrix, this.world).orElse(null);
+            recipe = RecipeCache.getRecipe(this.craftMatrix, this.world);
         }
 
         // if we have a recipe, fetch its result
@@ -108,19 +119,19 @@ public class CraftingStationTile extends NodeTileBase implements INamedContainer
     /**
      * Loops through all the recipe slots and looks for a matching item in an inventory slot
      *
-     * @param handler            Inventory of this crafter
-     * @param itemStacksToremove List of inventory slots to decrement when we find an item we can use, used later when we actually 'do' the craft
+     * @param handler Inventory of this crafter
+     * @param used    How many items each inventory slot gives to one craft, filled in as we find them - used later when we actually 'do' the craft
      * @return if we found ALL the items needed to craft the result
      */
-    private boolean hasAllItems(ItemStackHandler handler, ArrayList<Integer> itemStacksToremove) {
+    private boolean hasAllItems(ItemStackHandler handler, int[] used) {
         List<Ingredient> ingredients = lastRecipe.getIngredients().stream().filter(o -> !o.hasNoMatchingItems()).collect(Collectors.toList());
-        ItemHandlerUtil.InventoryCounts inventoryCounts = new ItemHandlerUtil.InventoryCounts(handler);
         int ingredientCounter = -1;
         for (int i = 0; i < 9; i++) {
             if (craftMatrix.getStackInSlot(i).isEmpty()) continue; //Skip empty slots in a recipe
             ingredientCounter++;
+            if (ingredientCounter >= ingredients.size()) return false;
             Ingredient ingredient = ingredients.get(ingredientCounter);
-            if (!hasItem(handler, inventoryCounts, itemStacksToremove, ingredient, i))
+            if (!hasItem(handler, used, ingredient, i))
                 return false;
         }
         return true;
@@ -131,21 +142,13 @@ public class CraftingStationTile extends NodeTileBase implements INamedContainer
      *
      * @return If we found a match for the ingredient
      */
-    private boolean hasItem(ItemStackHandler handler, ItemHandlerUtil.InventoryCounts inventoryCounts, ArrayList<Integer> itemStacksToremove, Ingredient ingredient, int i) {
+    private boolean hasItem(ItemStackHandler handler, int[] used, Ingredient ingredient, int i) {
         for (int k = 0; k < handler.getSlots(); k++) {
             ItemStack stackInSlot = handler.getStackInSlot(k);
-            if (ingredient.test(stackInSlot) && inventoryCounts.getCount(stackInSlot) > 0) {
-                int alreadyUsed = 0;
-                for (Integer slot : itemStacksToremove) {
-                    if (slot == k)
-                        alreadyUsed++;
-                }
-                if (handler.getStackInSlot(k).getCount() > alreadyUsed) {
-                    itemStacksToremove.add(k);
-                    inventoryCounts.removeStack(stackInSlot, 1);
-                    this.fakecraftMatrix.setInventorySlotContents(i, stackInSlot);
-                    return true;
-                }
+            if (stackInSlot.getCount() > used[k] && ingredient.test(stackInSlot)) {
+                used[k]++;
+                this.fakecraftMatrix.setInventorySlotContents(i, stackInSlot);
+                return true;
             }
         }
         return false;
@@ -156,84 +159,288 @@ public class CraftingStationTile extends NodeTileBase implements INamedContainer
             return ItemStack.EMPTY;
         }
 
+        // check if the player has access to the result
+        if (!(player instanceof ServerPlayerEntity) || this.lastRecipe == null)
+            return result;
         ServerPlayerEntity serverPlayer = (ServerPlayerEntity) player;
-        do {
-            this.fakecraftMatrix.clear();
-            ArrayList<Integer> itemStacksToremove = new ArrayList<>();
-            ItemStackHandler handler = getInventoryStacks();
-            // check if the player has access to the result
-            if (player instanceof ServerPlayerEntity && this.lastRecipe != null) {
-                // if the player cannot craft this, block crafting
-                if (!this.lastRecipe.isDynamic() && world.getGameRules().getBoolean(GameRules.DO_LIMITED_CRAFTING) && !((ServerPlayerEntity) player).getRecipeBook().isUnlocked(this.lastRecipe)) {
-                    return ItemStack.EMPTY;
-                }
+        // if the player cannot craft this, block crafting
+        if (!this.lastRecipe.isDynamic() && world.getGameRules().getBoolean(GameRules.DO_LIMITED_CRAFTING) && !serverPlayer.getRecipeBook().isUnlocked(this.lastRecipe)) {
+            return ItemStack.EMPTY;
+        }
 
-                //Check if the inventory slots have enough items to craft this.
-                if (!hasAllItems(handler, itemStacksToremove))
-                    break;
+        //A bulk craft usually finishes in one batch - another is only needed if the items it used ran out and others can stand in for them
+        boolean crafted = false;
+        while (craftBatch(serverPlayer, result, amount, bulk ? Integer.MAX_VALUE : 1) > 0) {
+            crafted = true;
+            if (!bulk) break;
+        }
+        ItemStack heldStack = player.inventory.getItemStack();
+        if (bulk && !heldStack.isEmpty()) {
+            ItemHandlerHelper.giveItemToPlayer(player, heldStack);
+            player.inventory.setItemStack(ItemStack.EMPTY);
+            crafted = true;
+        }
+        if (crafted)
+            serverPlayer.sendContainerToPlayer(serverPlayer.openContainer); //Update player's client with the itemstack now on the cursor
+        return result;
+    }
 
-                RecipeManager manager = this.world.getServer().getRecipeManager();
-                ICraftingRecipe madeRecipe = manager.getRecipe(IRecipeType.CRAFTING, this.fakecraftMatrix, this.world).orElse(null);
+    /**
+     * Crafts lastRecipe as many times as the cursor and inventory allow, up to @param maxCrafts, all from the same kinds of items.
+     * The items are found and the recipe looked up once, then everything for all the crafts is taken, and the output given, at once.
+     *
+     * @return how many crafts were done
+     */
+    private int craftBatch(ServerPlayerEntity player, ItemStack result, int amount, int maxCrafts) {
+        this.fakecraftMatrix.clear();
+        ItemStackHandler handler = getInventoryStacks();
+        int[] used = new int[handler.getSlots()];
+        //Check if the inventory slots have enough items to craft this.
+        if (!hasAllItems(handler, used))
+            return 0;
+
+        ICraftingRecipe madeRecipe = RecipeCache.getRecipe(this.fakecraftMatrix, this.world);
+        if (madeRecipe == null)
+            return 0;
+
+        ItemStack heldItem = player.inventory.getItemStack();
+        ItemStack resultItem = madeRecipe.getRecipeOutput();
+        if (resultItem.isEmpty()) return 0;
+
+        //How many crafts the inventory has items for - each kind of item we found can be taken from any slot holding it
+        Object2IntOpenHashMap<ItemStackKey> perCraft = new Object2IntOpenHashMap<>();
+        for (int slot = 0; slot < used.length; slot++) {
+            if (used[slot] > 0)
+                perCraft.addTo(ItemStackKey.of(handler.getStackInSlot(slot)), used[slot]);
+        }
+        Object2IntOpenHashMap<ItemStackKey> available = countAvailable(handler, perCraft);
+        int crafts = maxCrafts;
+        for (Object2IntMap.Entry<ItemStackKey> entry : perCraft.object2IntEntrySet()) {
+            crafts = Math.min(crafts, available.getInt(entry.getKey()) / entry.getIntValue());
+        }
+        if (crafts <= 0) return 0;
+
+        //How many crafts fit on the player's cursor, or when exporting, in the network and this station's inventory
+        boolean export = isExporting();
+        int room;
+        if (export)
+            room = getExportRoom(handler, ItemHandlerUtil.size(resultItem, resultItem.getCount() * crafts));
+        else if (heldItem.isEmpty())
+            room = resultItem.getMaxStackSize();
+        else if (resultItem.isItemEqual(heldItem))
+            room = resultItem.getMaxStackSize() - heldItem.getCount();
+        else
+            room = 0;
+        crafts = Math.min(crafts, room / resultItem.getCount());
+        if (crafts <= 0) return 0; //If it won't fit, return without deleting items from contents
 
-                if (madeRecipe == null)
-                    break;
+        // unlock the recipe if it was not unlocked
+        if (!madeRecipe.isDynamic()) {
+            player.unlockRecipes(Collections.singleton(madeRecipe));
+        }
 
-                // unlock the recipe if it was not unlocked
-                if (madeRecipe != null && !madeRecipe.isDynamic()) {
-                    player.unlockRecipes(Collections.singleton(madeRecipe));
-                }
+        // fire crafting events, once for the whole batch
+        result.onCrafting(this.world, player, amount * crafts);
+        BasicEventHooks.firePlayerCraftingEvent(player, ItemHandlerUtil.size(result, result.getCount() * crafts), this.fakecraftMatrix);
 
+        ForgeHooks.setCraftingPlayer(player);
+        List<ItemStack> remaining = madeRecipe.getRemainingItems(fakecraftMatrix).stream().filter(o -> !o.isEmpty()).collect(Collectors.toList()); //Get remaining items like buckets
+        ForgeHooks.setCraftingPlayer(null);
+        removeItems(handler, perCraft, crafts); //First, so anything the network can't take has the ingredients' slots to go in
 
-                // fire crafting events
-                result.onCrafting(this.world, player, amount);
-                BasicEventHooks.firePlayerCraftingEvent(player, result, this.fakecraftMatrix);
+        //Send the items into the network, or give them to the player (On their cursor)
+        if (export)
+            exportOrStore(handler, ItemHandlerUtil.size(resultItem, resultItem.getCount() * crafts));
+        else if (heldItem.isEmpty())
+            player.inventory.setItemStack(ItemHandlerUtil.size(resultItem, resultItem.getCount() * crafts));
+        else
+            heldItem.grow(resultItem.getCount() * crafts);
+        insertRemainders(handler, remaining, crafts);
+        return crafts;
+    }
 
+    /**
+     * Crafts @param pattern up to @param maxCrafts times from the items in this station's inventory, for the controller's crafting jobs.
+     * The output stays in the inventory, so no more than a stack of it is made at once, and only as much as there's room for.
+     *
+     * @return how many crafts were done
+     */
+    public int craftPattern(CraftingPattern pattern, int maxCrafts) {
+        if (this.world == null || this.world.isRemote || maxCrafts <= 0) return 0;
+        ItemStackHandler handler = getInventoryStacks();
+        Object2IntMap<ItemStackKey> perCraft = pattern.getInputs();
+        Object2IntOpenHashMap<ItemStackKey> available = countAvailable(handler, perCraft);
+        ItemStack patternOutput = pattern.getOutput();
+        int crafts = Math.min(maxCrafts, Math.max(patternOutput.getMaxStackSize() / patternOutput.getCount(), 1));
+        for (Object2IntMap.Entry<ItemStackKey> entry : perCraft.object2IntEntrySet()) {
+            crafts = Math.min(crafts, available.getInt(entry.getKey()) / entry.getIntValue());
+        }
+        if (crafts <= 0) return 0;
 
-                //Try to give the item to the player (On their cursor)
-                ItemStack heldItem = serverPlayer.inventory.getItemStack();
-                ItemStack resultItem = madeRecipe.getRecipeOutput().copy();
-                boolean success = false;
-                if (heldItem.isEmpty()) {
-                    serverPlayer.inventory.setItemStack(resultItem);
-                    success = true;
-                } else {
-                    if (resultItem.isItemEqual(heldItem) && (resultItem.getCount() + heldItem.getCount() <= resultItem.getMaxStackSize())) {
-                        heldItem.grow(resultItem.getCount());
-                        success = true;
-                    }
-                }
-                if (!success) break; //If it failed, return without deleting items from contents
-                serverPlayer.sendContainerToPlayer(serverPlayer.openContainer); //Update player's client with the itemstack now on the cursor
-
-                ForgeHooks.setCraftingPlayer(player);
-                List<ItemStack> remaining = madeRecipe.getRemainingItems(fakecraftMatrix).stream().filter(o -> !o.isEmpty()).collect(Collectors.toList()); //Get remaining items like buckets
-                ForgeHooks.setCraftingPlayer(null);
-                //Remove items from inventory that we found earlier
-                for (Integer slot : itemStacksToremove) {
-                    handler.getStackInSlot(slot).shrink(1);
-                }
-                //Put items into inventory like empty buckets. Drop in world if failed somehow.
-                for (ItemStack remainingStack : remaining) {
-                    ItemStack postInsert = ItemHandlerHelper.insertItem(handler, remainingStack, false);
-                    if (!postInsert.isEmpty()) {
-                        Block.spawnAsEntity(world, pos, postInsert);
-                    }
+        //Point each grid slot at a stack of the pattern's item, so the recipe sees the real items - NBT and all
+        this.fakecraftMatrix.clear();
+        for (int i = 0; i < 9; i++) {
+            ItemStackKey key = ItemStackKey.find(pattern.getGridStack(i));
+            if (key == null) continue;
+            for (int slot = 0; slot < handler.getSlots(); slot++) {
+                ItemStack stackInSlot = handler.getStackInSlot(slot);
+                if (!stackInSlot.isEmpty() && ItemStackKey.find(stackInSlot) == key) {
+                    this.fakecraftMatrix.setInventorySlotContents(i, stackInSlot);
+                    break;
                 }
             }
-        } while (bulk);
-        ItemStack heldStack = player.inventory.getItemStack();
-        if (bulk && !heldStack.isEmpty()) {
-            ItemHandlerHelper.giveItemToPlayer(player, heldStack);
-            player.inventory.setItemStack(ItemStack.EMPTY);
-            serverPlayer.sendContainerToPlayer(serverPlayer.openContainer); //Update player's client with the itemstack now on the cursor
         }
-        return result;
+        ICraftingRecipe recipe = pattern.getRecipe();
+        if (!recipe.matches(this.fakecraftMatrix, this.world)) return 0;
+        ItemStack output = recipe.getCraftingResult(this.fakecraftMatrix);
+        if (output.isEmpty()) return 0;
+
+        //Only as many crafts as there's room for the output - before the ingredients are taken, to be safe
+        ItemStack notInserted = ItemHandlerHelper.insertItem(handler, ItemHandlerUtil.size(output, output.getCount() * crafts), true);
+        crafts -= (notInserted.getCount() + output.getCount() - 1) / output.getCount();
+        if (crafts <= 0) return 0;
+
+        List<ItemStack> remaining = recipe.getRemainingItems(this.fakecraftMatrix).stream().filter(o -> !o.isEmpty()).collect(Collectors.toList());
+        removeItems(handler, perCraft, crafts);
+        ItemStack postInsert = ItemHandlerHelper.insertItem(handler, ItemHandlerUtil.size(output, output.getCount() * crafts), false);
+        if (!postInsert.isEmpty())
+            Block.spawnAsEntity(world, pos, postInsert);
+        insertRemainders(handler, remaining, crafts);
+        markDirty();
+        return crafts;
+    }
+
+    /**
+     * @return how many of each item in @param wanted the @param handler holds, across all its slots
+     */
+    private static Object2IntOpenHashMap<ItemStackKey> countAvailable(ItemStackHandler handler, Object2IntMap<ItemStackKey> wanted) {
+        Object2IntOpenHashMap<ItemStackKey> available = new Object2IntOpenHashMap<>();
+        for (int slot = 0; slot < handler.getSlots(); slot++) {
+            ItemStack stackInSlot = handler.getStackInSlot(slot);
+            if (stackInSlot.isEmpty()) continue;
+            ItemStackKey key = ItemStackKey.find(stackInSlot);
+            if (key != null && wanted.containsKey(key))
+                available.addTo(key, stackInSlot.getCount());
+        }
+        return available;
+    }
+
+    /**
+     * Remove the items for @param crafts crafts, @param perCraft of each per craft, from any slots of @param handler holding them
+     */
+    private static void removeItems(ItemStackHandler handler, Object2IntMap<ItemStackKey> perCraft, int crafts) {
+        for (Object2IntMap.Entry<ItemStackKey> entry : perCraft.object2IntEntrySet()) {
+            int toRemove = entry.getIntValue() * crafts;
+            for (int slot = 0; slot < handler.getSlots() && toRemove > 0; slot++) {
+                ItemStack stackInSlot = handler.getStackInSlot(slot);
+                if (stackInSlot.isEmpty() || ItemStackKey.find(stackInSlot) != entry.getKey()) continue;
+                int removed = Math.min(toRemove, stackInSlot.getCount());
+                stackInSlot.shrink(removed);
+                toRemove -= removed;
+            }
+        }
+    }
+
+    /**
+     * @return how many of @param stack, up to its count, can be exported right now - what the network can take,
+     * and after that what fits in @param handler
+     */
+    private int getExportRoom(ItemStackHandler handler, ItemStack stack) {
+        ControllerTile te = getControllerTE();
+        int room = te == null ? 0 : te.getExportRoom(stack, pos);
+        if (room >= stack.getCount()) return room;
+        ItemStack notInserted = ItemHandlerHelper.insertItem(handler, ItemHandlerUtil.size(stack, stack.getCount() - room), true);
+        return stack.getCount() - notInserted.getCount();
+    }
+
+    /**
+     * Put the @param remaining items of one craft, like empty buckets, for each of @param crafts crafts, into the network if exporting,
+     * otherwise into @param handler
+     */
+    private void insertRemainders(ItemStackHandler handler, List<ItemStack> remaining, int crafts) {
+        for (ItemStack remainingStack : remaining) {
+            exportOrStore(handler, ItemHandlerUtil.size(remainingStack, remainingStack.getCount() * crafts));
+        }
+    }
+
+    /**
+     * Send @param stack, which can be bigger than a stack, into the network if exporting. Whatever the network can't take, or all of it when not
+     * exporting, goes into @param handler a stack at a time. Drop in world if failed somehow.
+     */
+    private void exportOrStore(ItemStackHandler handler, ItemStack stack) {
+        ControllerTile te = isExporting() ? getControllerTE() : null;
+        if (te != null)
+            stack = te.exportItemStack(stack, pos);
+        int toReturn = stack.getCount();
+        while (toReturn > 0) {
+            ItemStack returnStack = ItemHandlerUtil.size(stack, Math.min(toReturn, stack.getMaxStackSize()));
+            toReturn -= returnStack.getCount();
+            ItemStack postInsert = ItemHandlerHelper.insertItem(handler, returnStack, false);
+            if (!postInsert.isEmpty()) {
+                Block.spawnAsEntity(world, pos, postInsert);
+            }
+        }
+    }
+
+    /**
+     * Send everything in this station's inventory into the network at once, for @param player, who's told how it went.
+     * Slots holding the same item are pooled, so each item's destinations are only looked up once and it goes as full stacks,
+     * rather than a slot at a time. Whatever couldn't go anywhere stays in the inventory.
+     */
+    public void sortAllToNetwork(ServerPlayerEntity player) {
+        ControllerTile te = getControllerTE();
+        if (te == null) return;
+        ItemStackHandler handler = getInventoryStacks();
+        LinkedHashMap<ItemStackKey, ItemStack> pooled = new LinkedHashMap<>(); //Each item in the inventory and how many across all slots, in slot order
+        for (int slot = 0; slot < handler.getSlots(); slot++) {
+            ItemStack stackInSlot = handler.getStackInSlot(slot);
+            if (stackInSlot.isEmpty()) continue;
+            ItemStackKey key = ItemStackKey.of(stackInSlot);
+            ItemStack total = pooled.get(key);
+            if (total == null)
+                pooled.put(key, stackInSlot.copy());
+            else
+                total.grow(stackInSlot.getCount());
+        }
+        if (pooled.isEmpty()) return;
+
+        Object2IntOpenHashMap<ItemStackKey> sent = new Object2IntOpenHashMap<>();
+        int sentCount = 0;
+        int keptCount = 0;
+        for (Map.Entry<ItemStackKey, ItemStack> entry : pooled.entrySet()) {
+            ItemStack total = entry.getValue();
+            int kept = te.exportItemStack(total, pos).getCount();
+            if (kept < total.getCount())
+                sent.put(entry.getKey(), total.getCount() - kept);
+            sentCount += total.getCount() - kept;
+            keptCount += kept;
+        }
+        if (!sent.isEmpty()) {
+            removeItems(handler, sent, 1); //Only now, as what went is taken from whichever slots hold it
+            markDirty();
+        }
+        if (keptCount == 0)
+            player.sendStatusMessage(new TranslationTextComponent("message.logisticslasers.sortedall", sentCount, sent.size()), false);
+        else
+            player.sendStatusMessage(new TranslationTextComponent("message.logisticslasers.sortedallpartial", sentCount, sent.size(), keptCount), false);
+    }
+
+    /**
+     * Stop everything the controller is crafting for this station, for @param player, who's told if there was nothing to stop
+     */
+    public void cancelCrafting(ServerPlayerEntity player) {
+        ControllerTile te = getControllerTE();
+        if (te == null) return;
+        if (te.getCraftingScheduler().cancelFor(pos) == 0)
+            player.sendStatusMessage(new TranslationTextComponent("message.logisticslasers.craftingnonetocancel"), false);
     }
 
     public boolean requestItem(ItemStack stack, PlayerEntity requestor) {
         ControllerTile te = getControllerTE();
         if (te == null) return false;
         ItemStack returnedStack = te.provideItemStacksToPos(stack, pos);
+        if (!returnedStack.isEmpty())
+            te.requestCraft(returnedStack, pos, (ServerPlayerEntity) requestor); //Whatever the network is short of, craft if there's a pattern for it
         te.updateItemCounts((ServerPlayerEntity) requestor);
         return returnedStack.getCount() == 0;
     }
@@ -249,12 +456,51 @@ public class CraftingStationTile extends NodeTileBase implements INamedContainer
         return success;
     }
 
+    /**
+     * Requests everything needed to craft lastRecipe @param amt times. Each ingredient is requested in one go - all the slots using it,
+     * times the amount - so it arrives in full stacks, and the @param requestor gets one item count update at the end.
+     */
     public void requestGrid(PlayerEntity requestor, int amt) {
-        if (lastRecipe == null) return;
-        List<Ingredient> ingredients = lastRecipe.getIngredients().stream().filter(o -> !o.hasNoMatchingItems()).collect(Collectors.toList());
-        for (Ingredient ingredient : ingredients) {
-            requestIngredient(ingredient, requestor);
+        if (lastRecipe == null || amt <= 0) return;
+        ControllerTile te = getControllerTE();
+        if (te == null) return;
+        Object2IntLinkedOpenHashMap<Ingredient> ingredientCounts = new Object2IntLinkedOpenHashMap<>(); //Shaped recipes use the same Ingredient for every slot with the same key
+        for (Ingredient ingredient : lastRecipe.getIngredients()) {
+            if (!ingredient.hasNoMatchingItems())
+                ingredientCounts.addTo(ingredient, amt);
+        }
+        for (Object2IntMap.Entry<Ingredient> entry : ingredientCounts.object2IntEntrySet()) {
+            int missing = te.provideIngredientToPos(entry.getKey(), entry.getIntValue(), pos);
+            if (missing > 0)
+                requestor.sendStatusMessage((new TranslationTextComponent("message.logisticslasers.failedRequest", missing, entry.getKey().getMatchingStacks()[0].getItem())), false);
+        }
+        te.updateItemCounts((ServerPlayerEntity) requestor);
+    }
+
+    /**
+     * Fill the crafting grid from @param grid, the items that can go in each of its slots - picking for each the one the network has most of,
+     * or the first if there's no network or it has none of them. The recipe is looked up once, after every slot is set.
+     */
+    public void setGrid(List<List<ItemStack>> grid) {
+        ControllerTile te = getControllerTE();
+        List<ItemStack> newStacks = new ArrayList<>(craftMatrixHandler.getSlots());
+        for (int slot = 0; slot < craftMatrixHandler.getSlots(); slot++) {
+            List<ItemStack> alternatives = slot < grid.size() ? grid.get(slot) : Collections.emptyList();
+            ItemStack mostStack = ItemStack.EMPTY;
+            int mostCount = -1;
+            for (int i = 0; i < alternatives.size() && i < PacketSetGrid.MAX_ALTERNATIVES; i++) {
+                ItemStack stack = alternatives.get(i);
+                if (stack.isEmpty()) continue;
+                ItemStackKey key = te == null ? null : ItemStackKey.find(stack); //Never seen anywhere means the network has none
+                int count = key == null ? 0 : te.getNetworkCount(key);
+                if (count > mostCount) {
+                    mostCount = count;
+                    mostStack = stack;
+                }
+            }
+            newStacks.add(ItemHandlerUtil.size(mostStack, 1));
         }
+        craftMatrixHandler.setAllStacks(newStacks);
     }
 
     public void clearGrid() {
@@ -296,6 +542,41 @@ public class CraftingStationTile extends NodeTileBase implements INamedContainer
         }*/
     }
 
+    public boolean getAutoExport() {
+        return autoExport;
+    }
+
+    public void setAutoExport(boolean autoExport) {
+        this.autoExport = autoExport;
+        markDirtyClient();
+    }
+
+    /**
+     * @return if crafted items should go into the network - only when there's a network to go to
+     */
+    private boolean isExporting() {
+        return autoExport && getControllerTE() != null;
+    }
+
+    public int getPrefetchCrafts() {
+        return prefetchCrafts;
+    }
+
+    public void setPrefetchCrafts(int crafts) {
+        prefetchCrafts = MathHelper.clamp(crafts, 0, MAX_PREFETCH_CRAFTS);
+        markDirtyClient();
+    }
+
+    /**
+     * @return the recipe in the crafting grid, for prefetching - looked up if it hasn't been since the station loaded
+     */
+    @Nullable
+    public ICraftingRecipe getPrefetchRecipe() {
+        if (lastRecipe == null && !craftMatrix.isEmpty())
+            calcResult();
+        return lastRecipe;
+    }
+
     public ItemStackHandler getInventoryStacks() {
         ItemStackHandler handler = inventory.orElse(new ItemStackHandler(27));
         return handler;
@@ -330,6 +611,8 @@ public class CraftingStationTile extends NodeTileBase implements INamedContainer
         super.read(state, tag);
         inventory.ifPresent(h -> h.deserializeNBT(tag.getCompound("inv")));
         craftMatrixHandler.deserializeNBT(tag.getCompound("craftInv"));
+        prefetchCrafts = tag.getInt("prefetch");
+        autoExport = tag.getBoolean("autoExport");
         //availableItems.deserializeNBT(tag.getCompound("availableItems"));
     }
 
@@ -337,6 +620,8 @@ public class CraftingStationTile extends NodeTileBase implements INamedContainer
     public CompoundNBT write(CompoundNBT tag) {
         inventory.ifPresent(h -> tag.put("inv", h.serializeNBT()));
         tag.put("craftInv", craftMatrixHandler.serializeNBT());
+        tag.putInt("prefetch", prefetchCrafts);
+        tag.putBoolean("autoExport", autoExport);
         //tag.put("availableItems", availableItems.serializeNBT());
         return super.write(tag);
     }
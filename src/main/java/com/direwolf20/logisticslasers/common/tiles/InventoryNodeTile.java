@@ -86,6 +86,7 @@ public class InventoryNodeTile extends NodeTileBase implements INamedContainerPr
      */
     public void clearCachedInventories() {
         this.facingHandler = null;
+        invalidateControllerHandle(); //The controller's handle still holds the inventory that just went away
     }
 
     public ArrayList<ItemStack> getCards() {
@@ -21,6 +21,7 @@ public class NodeTileBase extends TileBase {
     protected final Set<BlockPos> connectedNodes = new HashSet<>();
     protected BlockPos controllerPos = BlockPos.ZERO;
     private HashMap<BlockPos, List<BlockPos>> routeList = new HashMap<>();
+    private boolean chunkUnloaded = false;
 
     public NodeTileBase(TileEntityType<?> type) {
         super(type);
@@ -35,6 +36,16 @@ public class NodeTileBase extends TileBase {
         return te instanceof ControllerTile ? (ControllerTile) te : null;
     }
 
+    /**
+     * Tell the controller, if it's loaded, to forget what it has cached about this node - see ControllerTile.invalidateNodeHandle
+     */
+    protected void invalidateControllerHandle() {
+        if (world == null || world.isRemote || !hasController() || !world.isBlockLoaded(getControllerPos())) return;
+        ControllerTile te = getControllerTE();
+        if (te != null)
+            te.invalidateNodeHandle(pos);
+    }
+
     public List<BlockPos> getRouteTo(BlockPos pos) {
         if (!routeList.containsKey(pos))
             findRouteFor(pos);
@@ -222,8 +233,20 @@ public class NodeTileBase extends TileBase {
 
     @Override
     public void remove() {
-        if (!world.isRemote)
+        if (!world.isRemote) {
+            invalidateControllerHandle();
             disconnectAllNodes();
+        }
         super.remove();
     }
+
+    @Override
+    public void onChunkUnloaded() {
+        chunkUnloaded = true; //A fresh tile entity is created when the chunk comes back, so anything still holding this one should let go
+        super.onChunkUnloaded();
+    }
+
+    public boolean isChunkUnloaded() {
+        return chunkUnloaded;
+    }
 }
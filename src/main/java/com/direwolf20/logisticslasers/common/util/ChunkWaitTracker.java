@@ -0,0 +1,93 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps track of which controllers are waiting on which unloaded chunks.
+ * Controllers park tasks that travel through unloaded chunks and register here, the chunk load event marks them as woken,
+ * and the controller picks up the woken chunks on its next tick.
+ * Only positions are stored so we never hold on to (or load) a controller's tile entity from the event.
+ */
+public class ChunkWaitTracker {
+    private static final HashMap<RegistryKey<World>, Long2ObjectOpenHashMap<Set<BlockPos>>> waiting = new HashMap<>();
+    private static final HashMap<RegistryKey<World>, HashMap<BlockPos, LongSet>> woken = new HashMap<>();
+
+    /**
+     * Register the controller at @param controllerPos as waiting on the chunk @param chunk (see ChunkPos.asLong) in @param world
+     */
+    public static synchronized void waitFor(World world, long chunk, BlockPos controllerPos) {
+        waiting.computeIfAbsent(world.getDimensionKey(), k -> new Long2ObjectOpenHashMap<>())
+                .computeIfAbsent(chunk, k -> new HashSet<>())
+                .add(controllerPos);
+    }
+
+    /**
+     * Called when the @param chunk loads in the world @param dimension - every controller waiting on it is woken up
+     */
+    public static synchronized void chunkLoaded(RegistryKey<World> dimension, long chunk) {
+        Long2ObjectOpenHashMap<Set<BlockPos>> worldWaiting = waiting.get(dimension);
+        if (worldWaiting == null) return;
+        Set<BlockPos> controllers = worldWaiting.remove(chunk);
+        if (controllers == null) return;
+        HashMap<BlockPos, LongSet> worldWoken = woken.computeIfAbsent(dimension, k -> new HashMap<>());
+        for (BlockPos controllerPos : controllers) {
+            worldWoken.computeIfAbsent(controllerPos, k -> new LongOpenHashSet()).add(chunk);
+        }
+    }
+
+    /**
+     * @return the chunks that loaded since the controller at @param controllerPos last asked, or null if there were none
+     */
+    public static synchronized LongSet pollWoken(World world, BlockPos controllerPos) {
+        HashMap<BlockPos, LongSet> worldWoken = woken.get(world.getDimensionKey());
+        if (worldWoken == null) return null;
+        return worldWoken.remove(controllerPos);
+    }
+
+    /**
+     * The controller at @param controllerPos found the @param chunk loaded by itself, without the event - so stop waiting on it
+     */
+    public static synchronized void stopWaiting(World world, long chunk, BlockPos controllerPos) {
+        Long2ObjectOpenHashMap<Set<BlockPos>> worldWaiting = waiting.get(world.getDimensionKey());
+        if (worldWaiting != null) {
+            Set<BlockPos> controllers = worldWaiting.get(chunk);
+            if (controllers != null && controllers.remove(controllerPos) && controllers.isEmpty())
+                worldWaiting.remove(chunk);
+        }
+        HashMap<BlockPos, LongSet> worldWoken = woken.get(world.getDimensionKey());
+        LongSet chunks = worldWoken == null ? null : worldWoken.get(controllerPos);
+        if (chunks != null && chunks.remove(chunk) && chunks.isEmpty())
+            worldWoken.remove(controllerPos);
+    }
+
+    /**
+     * Forget everything, used when the server stops - positions from one world mean nothing in the next one opened
+     */
+    public static synchronized void clear() {
+        waiting.clear();
+        woken.clear();
+    }
+
+    /**
+     * Forget everything about the controller at @param controllerPos, used when it is removed from the world
+     */
+    public static synchronized void forget(World world, BlockPos controllerPos) {
+        Long2ObjectOpenHashMap<Set<BlockPos>> worldWaiting = waiting.get(world.getDimensionKey());
+        if (worldWaiting != null) {
+            worldWaiting.values().forEach(controllers -> controllers.remove(controllerPos));
+            worldWaiting.values().removeIf(Set::isEmpty);
+        }
+        HashMap<BlockPos, LongSet> worldWoken = woken.get(world.getDimensionKey());
+        if (worldWoken != null)
+            worldWoken.remove(controllerPos);
+    }
+}
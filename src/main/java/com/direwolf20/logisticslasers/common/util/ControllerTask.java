@@ -18,6 +18,7 @@ public class ControllerTask {
     public boolean isCancelled;
     public boolean isComplete;
     public long scheduledTime;
+    public int bounces; //How many times these items have already failed to insert at their destination, see ControllerTile.handleLostStack
 
     public enum TaskType {
         PARTICLE,
@@ -47,6 +48,7 @@ public class ControllerTask {
         this.isCancelled = nbt.getBoolean("isCancelled");
         this.isComplete = nbt.getBoolean("isComplete");
         this.scheduledTime = nbt.getLong("scheduledTime");
+        this.bounces = nbt.getInt("bounces");
     }
 
     public void complete() {
@@ -81,6 +83,7 @@ public class ControllerTask {
         nbt.putBoolean("isCancelled", isCancelled);
         nbt.putBoolean("isComplete", isComplete);
         nbt.putLong("scheduledTime", scheduledTime);
+        nbt.putInt("bounces", bounces);
         return nbt;
     }
 
@@ -0,0 +1,167 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.BlockPos;
+
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * A request to craft an item, the plan for doing it, and how far each step of the plan has got
+ */
+public class CraftingJob {
+    public enum StepState {
+        WAITING, //For the steps it depends on, or a free crafting station
+        RUNNING, //At a crafting station, gathering ingredients and crafting as they arrive
+        DONE
+    }
+
+    public final int id;
+    public final ItemStack output; //What was asked for, sized to how many
+    public final BlockPos destination; //The crafting station the output goes to
+    @Nullable
+    public final UUID requester;
+    public final CraftingPlanner.Plan plan;
+    private final StepState[] states;
+    private final BlockPos[] stations; //Where each running step is being crafted, or where a finished step's output is still waiting
+    private final int[] craftsDone;
+    private final int[] undelivered; //Output each step has made that hasn't been sent on yet
+
+    public CraftingJob(int id, ItemStack output, BlockPos destination, @Nullable UUID requester, CraftingPlanner.Plan plan) {
+        this.id = id;
+        this.output = output;
+        this.destination = destination;
+        this.requester = requester;
+        this.plan = plan;
+        int steps = plan.steps.size();
+        this.states = new StepState[steps];
+        this.stations = new BlockPos[steps];
+        this.craftsDone = new int[steps];
+        this.undelivered = new int[steps];
+        for (int i = 0; i < steps; i++) {
+            states[i] = StepState.WAITING;
+        }
+    }
+
+    public CraftingPlanner.Step getStep(int step) {
+        return plan.steps.get(step);
+    }
+
+    public int getStepCount() {
+        return states.length;
+    }
+
+    public StepState getState(int step) {
+        return states[step];
+    }
+
+    @Nullable
+    public BlockPos getStation(int step) {
+        return stations[step];
+    }
+
+    /**
+     * Start @param step at the crafting station at @param station, or put it back to waiting if @param station is null
+     */
+    public void setStation(int step, @Nullable BlockPos station) {
+        stations[step] = station;
+        states[step] = station == null ? StepState.WAITING : StepState.RUNNING;
+    }
+
+    public int getCraftsDone(int step) {
+        return craftsDone[step];
+    }
+
+    /**
+     * @param crafts more crafts of @param step were done, which finishes it once they're all done.
+     * Its station is kept as where its output is until that's all been sent on, see delivered
+     */
+    public void addCraftsDone(int step, int crafts) {
+        craftsDone[step] += crafts;
+        undelivered[step] += crafts * getStep(step).pattern.getOutput().getCount();
+        if (craftsDone[step] >= getStep(step).crafts) {
+            states[step] = StepState.DONE;
+            if (undelivered[step] <= 0)
+                stations[step] = null;
+        }
+    }
+
+    /**
+     * @return how much of what @param step made hasn't been sent on yet
+     */
+    public int getUndelivered(int step) {
+        return undelivered[step];
+    }
+
+    /**
+     * @param count of what @param step made was sent on, or is gone
+     */
+    public void delivered(int step, int count) {
+        undelivered[step] = Math.max(undelivered[step] - count, 0);
+        if (states[step] == StepState.DONE && undelivered[step] <= 0)
+            stations[step] = null;
+    }
+
+    /**
+     * @return how much of its output @param step still has to send on, counting what it's yet to craft
+     */
+    public int getStillToDeliver(int step) {
+        int toCraft = states[step] == StepState.DONE ? 0 : (getStep(step).crafts - craftsDone[step]) * getStep(step).pattern.getOutput().getCount();
+        return undelivered[step] + toCraft;
+    }
+
+    /**
+     * @return if everything @param step depends on has at least started, so what they make can be sent straight to it as it's made
+     */
+    public boolean isReady(int step) {
+        for (int dependency : getStep(step).dependencies) {
+            if (states[dependency] == StepState.WAITING)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the steps that use what @param step makes
+     */
+    public IntList getDependents(int step) {
+        IntArrayList dependents = new IntArrayList();
+        for (int i = step + 1; i < states.length; i++) {
+            if (getStep(i).dependencies.contains(step))
+                dependents.add(i);
+        }
+        return dependents;
+    }
+
+    /**
+     * @return if @param step makes what the job was asked for, rather than an ingredient for another step
+     */
+    public boolean isFinalStep(int step) {
+        return step == states.length - 1;
+    }
+
+    /**
+     * @return if every step is done, and everything they made has been sent on
+     */
+    public boolean isDone() {
+        for (int step = 0; step < states.length; step++) {
+            if (states[step] != StepState.DONE || undelivered[step] > 0)
+                return false;
+        }
+        return true;
+    }
+
+    public int getCraftsDone() {
+        int done = 0;
+        for (int crafts : craftsDone) {
+            done += crafts;
+        }
+        return done;
+    }
+
+    public int getTotalCrafts() {
+        return plan.getTotalCrafts();
+    }
+}
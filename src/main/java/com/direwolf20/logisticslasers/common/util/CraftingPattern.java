@@ -0,0 +1,91 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import com.direwolf20.logisticslasers.common.items.logiccards.CardPattern;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMaps;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.ICraftingRecipe;
+import net.minecraft.world.World;
+import net.minecraftforge.items.ItemStackHandler;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+
+/**
+ * A pattern card's recipe, resolved against the current recipes: the exact items it takes, how many of each per craft, and what it makes.
+ * Built by the controller from the pattern cards in its inventory nodes, and rebuilt when they change or recipes are reloaded.
+ */
+public class CraftingPattern {
+    private final ItemStack[] grid = new ItemStack[9]; //One item per crafting grid slot, EMPTY where the grid is empty
+    private final ICraftingRecipe recipe;
+    private final ItemStack output;
+    private final ItemStackKey outputKey;
+    private final Object2IntOpenHashMap<ItemStackKey> inputs = new Object2IntOpenHashMap<>(); //How many of each item one craft takes
+    private final HashMap<ItemStackKey, ItemStack> prototypes = new HashMap<>();
+
+    private CraftingPattern(ItemStackHandler pattern, ICraftingRecipe recipe, ItemStack output) {
+        this.recipe = recipe;
+        this.output = output;
+        this.outputKey = ItemStackKey.of(output);
+        for (int i = 0; i < grid.length; i++) {
+            ItemStack stack = ItemHandlerUtil.size(pattern.getStackInSlot(i), 1);
+            grid[i] = stack;
+            if (stack.isEmpty()) continue;
+            ItemStackKey key = ItemStackKey.of(stack);
+            inputs.addTo(key, 1);
+            prototypes.putIfAbsent(key, stack);
+        }
+    }
+
+    /**
+     * @return the pattern stored on @param card, or null if it's blank or its items no longer make anything in @param world
+     */
+    @Nullable
+    public static CraftingPattern fromCard(ItemStack card, World world) {
+        ItemStackHandler pattern = CardPattern.getPattern(card);
+        CraftingStationInventory matrix = new CraftingStationInventory(pattern, 3, 3);
+        if (matrix.isEmpty()) return null;
+        ICraftingRecipe recipe = RecipeCache.getRecipe(matrix, world);
+        if (recipe == null) return null;
+        ItemStack output = recipe.getCraftingResult(matrix);
+        if (output.isEmpty()) return null;
+        return new CraftingPattern(pattern, recipe, output);
+    }
+
+    public ICraftingRecipe getRecipe() {
+        return recipe;
+    }
+
+    /**
+     * @return what one craft makes - must not be changed
+     */
+    public ItemStack getOutput() {
+        return output;
+    }
+
+    public ItemStackKey getOutputKey() {
+        return outputKey;
+    }
+
+    /**
+     * @return the item that goes in crafting grid @param slot, EMPTY if none - must not be changed
+     */
+    public ItemStack getGridStack(int slot) {
+        return grid[slot];
+    }
+
+    /**
+     * @return how many of each item one craft takes, read only
+     */
+    public Object2IntMap<ItemStackKey> getInputs() {
+        return Object2IntMaps.unmodifiable(inputs);
+    }
+
+    /**
+     * @return a single item of @param key, one of this pattern's inputs
+     */
+    public ItemStack getPrototype(ItemStackKey key) {
+        return prototypes.getOrDefault(key, ItemStack.EMPTY);
+    }
+}
@@ -0,0 +1,149 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntLists;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMaps;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+
+/**
+ * Works out how to craft an item from what the network has: which patterns to craft how many times, and in what order.
+ * Ingredients come from stock where there is some, and are crafted themselves where there isn't, as deep as the patterns go.
+ * Anything a craft makes beyond what was needed is used by later steps before taking more from stock.
+ * Only reads the stock and patterns it's given, so it doesn't care where they came from - the CraftingScheduler runs it on its own
+ * thread against a snapshot of both. Interrupting that thread stops it with a CancellationException.
+ */
+public class CraftingPlanner {
+    private final Function<ItemStackKey, List<CraftingPattern>> patterns;
+    private final Object2IntOpenHashMap<ItemStackKey> stock; //What's left of the network's stock as the plan takes from it
+    private final int maxDepth;
+    private final List<Step> steps = new ArrayList<>();
+    private final Object2IntOpenHashMap<ItemStackKey> missing = new Object2IntOpenHashMap<>();
+    private final Object2IntOpenHashMap<ItemStackKey> surplus = new Object2IntOpenHashMap<>(); //Made by earlier steps but not needed by them
+    private final HashMap<ItemStackKey, IntArrayList> surplusSteps = new HashMap<>(); //Which steps made the surplus
+    private final Set<ItemStackKey> resolving = new HashSet<>(); //Items being worked out further up, so recipe loops end
+
+    /**
+     * One pattern to craft some number of times, once the steps it depends on are done
+     */
+    public static class Step {
+        public final CraftingPattern pattern;
+        public final int crafts;
+        public final IntList dependencies; //Indexes of earlier steps that make what this one needs
+        public final Object2IntMap<ItemStackKey> fromStock; //What this step takes straight from the network
+
+        private Step(CraftingPattern pattern, int crafts, IntList dependencies, Object2IntMap<ItemStackKey> fromStock) {
+            this.pattern = pattern;
+            this.crafts = crafts;
+            this.dependencies = IntLists.unmodifiable(dependencies);
+            this.fromStock = Object2IntMaps.unmodifiable(fromStock);
+        }
+    }
+
+    public static class Plan {
+        public final List<Step> steps; //Every step comes after the steps it depends on, the last one makes what was asked for
+        public final Object2IntMap<ItemStackKey> missing; //What couldn't be found or crafted
+
+        private Plan(List<Step> steps, Object2IntMap<ItemStackKey> missing) {
+            this.steps = Collections.unmodifiableList(steps);
+            this.missing = Object2IntMaps.unmodifiable(missing);
+        }
+
+        public boolean isComplete() {
+            return missing.isEmpty() && !steps.isEmpty();
+        }
+
+        public int getTotalCrafts() {
+            int total = 0;
+            for (Step step : steps) {
+                total += step.crafts;
+            }
+            return total;
+        }
+    }
+
+    private CraftingPlanner(Object2IntMap<ItemStackKey> stock, Function<ItemStackKey, List<CraftingPattern>> patterns, int maxDepth) {
+        this.stock = new Object2IntOpenHashMap<>(stock);
+        this.patterns = patterns;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Plan crafting @param count of @param key, with ingredients from @param stock and the @param patterns for each item,
+     * crafting ingredients of ingredients at most @param maxDepth deep
+     */
+    public static Plan plan(ItemStackKey key, int count, Object2IntMap<ItemStackKey> stock, Function<ItemStackKey, List<CraftingPattern>> patterns, int maxDepth) {
+        CraftingPlanner planner = new CraftingPlanner(stock, patterns, maxDepth);
+        planner.resolve(key, count, 0, null); //What was asked for is crafted, not taken from stock - the network didn't have enough of it
+        return new Plan(planner.steps, planner.missing);
+    }
+
+    /**
+     * Find @param count of @param key, from surplus, then stock (recorded in @param fromStock, the step that needs it), then by crafting
+     *
+     * @return the steps that have to finish before the items are there
+     */
+    private IntList resolve(ItemStackKey key, int count, int depth, Object2IntOpenHashMap<ItemStackKey> fromStock) {
+        if (Thread.currentThread().isInterrupted())
+            throw new CancellationException(); //Cancelled, nobody wants the plan any more
+        IntArrayList dependencies = new IntArrayList();
+        int fromSurplus = Math.min(surplus.getInt(key), count);
+        if (fromSurplus > 0) {
+            surplus.addTo(key, -fromSurplus);
+            dependencies.addAll(surplusSteps.get(key));
+            count -= fromSurplus;
+        }
+        if (fromStock != null && count > 0) {
+            int taken = Math.min(stock.getInt(key), count);
+            if (taken > 0) {
+                stock.addTo(key, -taken);
+                fromStock.addTo(key, taken);
+                count -= taken;
+            }
+        }
+        if (count <= 0) return dependencies;
+
+        CraftingPattern pattern = depth < maxDepth && !resolving.contains(key) ? findPattern(key) : null;
+        if (pattern == null) {
+            missing.addTo(key, count);
+            return dependencies;
+        }
+        int perCraft = pattern.getOutput().getCount();
+        int crafts = (count + perCraft - 1) / perCraft;
+        resolving.add(key);
+        IntArrayList stepDependencies = new IntArrayList();
+        Object2IntOpenHashMap<ItemStackKey> stepFromStock = new Object2IntOpenHashMap<>();
+        for (Object2IntMap.Entry<ItemStackKey> input : pattern.getInputs().object2IntEntrySet()) {
+            for (int dependency : resolve(input.getKey(), input.getIntValue() * crafts, depth + 1, stepFromStock)) {
+                if (!stepDependencies.contains(dependency))
+                    stepDependencies.add(dependency);
+            }
+        }
+        resolving.remove(key);
+        steps.add(new Step(pattern, crafts, stepDependencies, stepFromStock));
+        int stepIndex = steps.size() - 1;
+        dependencies.add(stepIndex);
+        int extra = crafts * perCraft - count;
+        if (extra > 0) {
+            surplus.addTo(key, extra);
+            surplusSteps.computeIfAbsent(key, k -> new IntArrayList()).add(stepIndex);
+        }
+        return dependencies;
+    }
+
+    /**
+     * @return the first pattern for @param key that doesn't need @param key itself
+     */
+    private CraftingPattern findPattern(ItemStackKey key) {
+        for (CraftingPattern pattern : patterns.apply(key)) {
+            if (!pattern.getInputs().containsKey(key))
+                return pattern;
+        }
+        return null;
+    }
+}
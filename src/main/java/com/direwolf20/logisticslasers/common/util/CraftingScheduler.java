@@ -0,0 +1,585 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import com.direwolf20.logisticslasers.Config;
+import com.direwolf20.logisticslasers.common.container.CraftingStationContainer;
+import com.direwolf20.logisticslasers.common.tiles.ControllerTile;
+import com.direwolf20.logisticslasers.common.tiles.CraftingStationTile;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.NBTUtil;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraftforge.items.ItemStackHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a controller's crafting jobs on the crafting stations in its network.
+ * Each step of a job gets a station of its own once the steps it depends on have started, so independent steps craft in parallel.
+ * Only stations nobody has open are used - a player's items aren't the job's to craft with - and a step pauses while a player has its station open.
+ * A running step asks the providers for everything it still needs, a stack at a time per item, counting what's already on its way
+ * and what the steps it depends on are still to make, and crafts whatever it can as items arrive. Only what a step made is sent on:
+ * ingredients straight to the stations of the steps that need them, anything they didn't need into the network,
+ * and the last step's output to the crafting station that asked for it.
+ * Plans are worked out on a shared planner thread, against a copy of the network's stock and the pattern cards as they were when asked,
+ * so a deep plan never holds up the server. When one comes back it's checked against the network as it is now - if the patterns changed
+ * or the stock it counted on has gone, it's planned again - and only then does it become a job.
+ * Each controller only takes on so many jobs, planning or running, at once.
+ * Only what was asked for is saved with the controller, not the plans - after loading, each request is planned again
+ * against what the network has by then, which includes anything its job had already crafted.
+ */
+public class CraftingScheduler {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final ExecutorService PLANNER = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("Logistics Lasers Crafting Planner").setDaemon(true).build());
+    private static final int MAX_REPLANS = 2; //How often a plan that went stale while being worked out is tried again, before giving up
+
+    private final ControllerTile controller;
+    private final ArrayList<PendingPlan> planning = new ArrayList<>(); //Requests whose plan is being worked out, oldest first
+    private final ArrayList<CraftingJob> jobs = new ArrayList<>();
+    private final ArrayList<PendingPlan> restored = new ArrayList<>(); //Requests read from NBT, planned on the first tick, as the network isn't there to plan against while loading
+    private final Set<BlockPos> busyStations = new HashSet<>(); //Stations a running step is using
+    private int nextId = 1;
+
+    /**
+     * A request waiting for the planner thread
+     */
+    private static class PendingPlan {
+        private final int id;
+        private final ItemStack output;
+        private final BlockPos destination;
+        @Nullable
+        private final UUID requester;
+        private int patternVersion; //The patterns the plan is being worked out with
+        private Future<CraftingPlanner.Plan> future;
+        private int attempts = 0;
+
+        private PendingPlan(int id, ItemStack output, BlockPos destination, @Nullable UUID requester) {
+            this.id = id;
+            this.output = output;
+            this.destination = destination;
+            this.requester = requester;
+        }
+    }
+
+    public CraftingScheduler(ControllerTile controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * @return if this controller already has as many jobs, planning or running, as it takes on at once
+     */
+    public boolean isFull() {
+        return planning.size() + jobs.size() >= Config.CRAFTING_MAX_JOBS.get();
+    }
+
+    /**
+     * Start working out how to craft @param output, sized to how many, for delivery to @param destination.
+     * It becomes a job once the plan is back and still holds - see tick.
+     *
+     * @return the request's id, for cancel, or -1 if the queue is full
+     */
+    public int request(ItemStack output, BlockPos destination, @Nullable UUID requester) {
+        if (isFull()) return -1;
+        PendingPlan pending = new PendingPlan(nextId++, output.copy(), destination, requester);
+        submit(pending);
+        planning.add(pending);
+        return pending.id;
+    }
+
+    /**
+     * Hand @param pending to the planner thread, with a copy of what the network has now that other jobs haven't set aside,
+     * and the patterns as they are now - which aren't changed once built, only replaced, so can be shared as they are
+     */
+    private void submit(PendingPlan pending) {
+        Object2IntOpenHashMap<ItemStackKey> stock = controller.getCraftingStock();
+        Map<ItemStackKey, List<CraftingPattern>> patterns = controller.getPatternSnapshot();
+        ItemStackKey key = ItemStackKey.of(pending.output); //Interned here, as interning isn't safe off the server thread
+        int count = pending.output.getCount();
+        int maxDepth = Config.CRAFTING_PLAN_MAX_DEPTH.get();
+        pending.patternVersion = controller.getPatternVersion();
+        pending.attempts++;
+        pending.future = PLANNER.submit(() -> CraftingPlanner.plan(key, count, stock, k -> patterns.getOrDefault(k, Collections.emptyList()), maxDepth));
+    }
+
+    /**
+     * Stop the request or job with @param id, whether it's still being planned or already crafting, and tell whoever asked for it.
+     * Anything already delivered to its crafting stations stays there.
+     *
+     * @return if there was one to stop
+     */
+    public boolean cancel(int id) {
+        for (Iterator<PendingPlan> iterator = planning.iterator(); iterator.hasNext(); ) {
+            PendingPlan pending = iterator.next();
+            if (pending.id != id) continue;
+            pending.future.cancel(true);
+            iterator.remove();
+            notify(pending.requester, new TranslationTextComponent("message.logisticslasers.craftingcancelled", pending.output.getCount(), pending.output.getDisplayName()));
+            return true;
+        }
+        for (Iterator<CraftingJob> iterator = jobs.iterator(); iterator.hasNext(); ) {
+            CraftingJob job = iterator.next();
+            if (job.id != id) continue;
+            release(job);
+            iterator.remove();
+            notify(job.requester, new TranslationTextComponent("message.logisticslasers.craftingcancelled", job.output.getCount(), job.output.getDisplayName()));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stop every request and job crafting for the station at @param destination, see cancel
+     *
+     * @return how many were stopped
+     */
+    public int cancelFor(BlockPos destination) {
+        IntArrayList ids = new IntArrayList();
+        for (PendingPlan pending : planning) {
+            if (pending.destination.equals(destination))
+                ids.add(pending.id);
+        }
+        for (CraftingJob job : jobs) {
+            if (job.destination.equals(destination))
+                ids.add(job.id);
+        }
+        int cancelled = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            if (cancel(ids.getInt(i)))
+                cancelled++;
+        }
+        return cancelled;
+    }
+
+    /**
+     * Stop everything, used when the controller goes away
+     */
+    public void cancelAll() {
+        for (PendingPlan pending : planning) {
+            pending.future.cancel(true);
+        }
+        planning.clear();
+        restored.clear();
+        jobs.clear();
+        busyStations.clear();
+    }
+
+    /**
+     * Free the crafting stations @param job's running steps were using
+     */
+    private void release(CraftingJob job) {
+        for (int step = 0; step < job.getStepCount(); step++) {
+            if (job.getState(step) == CraftingJob.StepState.RUNNING)
+                busyStations.remove(job.getStation(step));
+        }
+    }
+
+    /**
+     * @return how many requests are waiting on the planner thread
+     */
+    public int getPlanningCount() {
+        return planning.size();
+    }
+
+    /**
+     * @return every job not yet finished, oldest first, read only
+     */
+    public List<CraftingJob> getJobs() {
+        return Collections.unmodifiableList(jobs);
+    }
+
+    /**
+     * @return how many crafts all the jobs still have to do
+     */
+    public int getPendingCrafts() {
+        int pending = 0;
+        for (CraftingJob job : jobs) {
+            pending += job.getTotalCrafts() - job.getCraftsDone();
+        }
+        return pending;
+    }
+
+    /**
+     * @return what the steps that haven't started yet plan to take from the network, so new plans don't count on it too
+     */
+    public Object2IntMap<ItemStackKey> getReserved() {
+        Object2IntOpenHashMap<ItemStackKey> reserved = new Object2IntOpenHashMap<>();
+        for (CraftingJob job : jobs) {
+            for (int step = 0; step < job.getStepCount(); step++) {
+                if (job.getState(step) != CraftingJob.StepState.WAITING) continue;
+                for (Object2IntMap.Entry<ItemStackKey> entry : job.getStep(step).fromStock.object2IntEntrySet()) {
+                    reserved.addTo(entry.getKey(), entry.getIntValue());
+                }
+            }
+        }
+        return reserved;
+    }
+
+    public void tick() {
+        for (PendingPlan pending : restored) {
+            submit(pending);
+            planning.add(pending);
+        }
+        restored.clear();
+        collectPlans();
+        Iterator<CraftingJob> iterator = jobs.iterator();
+        while (iterator.hasNext()) {
+            CraftingJob job = iterator.next();
+            if (!controller.getCrafterNodes().contains(job.destination)) { //The station it's for left the network, so nobody's waiting for it
+                release(job);
+                iterator.remove();
+                notify(job.requester, new TranslationTextComponent("message.logisticslasers.craftingcancelled", job.output.getCount(), job.output.getDisplayName()));
+                continue;
+            }
+            for (int step = 0; step < job.getStepCount(); step++) {
+                if (job.getState(step) == CraftingJob.StepState.WAITING && job.isReady(step))
+                    start(job, step);
+                if (job.getState(step) == CraftingJob.StepState.RUNNING)
+                    run(job, step);
+                else if (job.getState(step) == CraftingJob.StepState.DONE && job.getStation(step) != null)
+                    deliverLeftovers(job, step);
+            }
+            if (job.isDone()) {
+                iterator.remove();
+                notify(job.requester, new TranslationTextComponent("message.logisticslasers.craftingdone", job.output.getCount(), job.output.getDisplayName()));
+            }
+        }
+    }
+
+    /**
+     * Turn the plans the planner thread has finished into jobs, if they still hold - otherwise plan them again, or give up
+     */
+    private void collectPlans() {
+        for (Iterator<PendingPlan> iterator = planning.iterator(); iterator.hasNext(); ) {
+            PendingPlan pending = iterator.next();
+            if (!pending.future.isDone()) continue;
+            CraftingPlanner.Plan plan;
+            try {
+                plan = pending.future.get();
+            } catch (InterruptedException | ExecutionException | CancellationException e) {
+                LOGGER.error("Failed to plan crafting {} {}", pending.output.getCount(), pending.output, e);
+                iterator.remove();
+                notify(pending.requester, new TranslationTextComponent("message.logisticslasers.craftingfailed", pending.output.getCount(), pending.output.getDisplayName()));
+                continue;
+            }
+            if (!isStillValid(pending, plan)) {
+                if (pending.attempts <= MAX_REPLANS) {
+                    submit(pending);
+                    continue;
+                }
+                iterator.remove();
+                notify(pending.requester, new TranslationTextComponent("message.logisticslasers.craftingfailed", pending.output.getCount(), pending.output.getDisplayName()));
+                continue;
+            }
+            iterator.remove();
+            if (!plan.isComplete()) {
+                for (Object2IntMap.Entry<ItemStackKey> missing : plan.missing.object2IntEntrySet()) {
+                    notify(pending.requester, new TranslationTextComponent("message.logisticslasers.craftingmissing", missing.getIntValue(), new ItemStack(missing.getKey().item).getDisplayName()));
+                }
+                continue;
+            }
+            jobs.add(new CraftingJob(pending.id, pending.output, pending.destination, pending.requester, plan));
+            notify(pending.requester, new TranslationTextComponent("message.logisticslasers.craftingqueued", pending.output.getCount(), pending.output.getDisplayName(), plan.getTotalCrafts()));
+        }
+    }
+
+    /**
+     * @return if @param plan, worked out for @param pending from a snapshot, still fits the network: the same patterns,
+     * and everything it takes from stock still there and not set aside for another job
+     */
+    private boolean isStillValid(PendingPlan pending, CraftingPlanner.Plan plan) {
+        if (pending.patternVersion != controller.getPatternVersion()) return false;
+        Object2IntOpenHashMap<ItemStackKey> needed = new Object2IntOpenHashMap<>();
+        for (CraftingPlanner.Step step : plan.steps) {
+            for (Object2IntMap.Entry<ItemStackKey> entry : step.fromStock.object2IntEntrySet()) {
+                needed.addTo(entry.getKey(), entry.getIntValue());
+            }
+        }
+        if (needed.isEmpty()) return true;
+        Object2IntMap<ItemStackKey> reserved = getReserved();
+        for (Object2IntMap.Entry<ItemStackKey> entry : needed.object2IntEntrySet()) {
+            if (controller.getNetworkCount(entry.getKey()) - reserved.getInt(entry.getKey()) < entry.getIntValue())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Give @param step of @param job a crafting station, if one is free - the last step prefers the station the output is for,
+     * then any step prefers a station where something it needs is already waiting
+     */
+    private void start(CraftingJob job, int step) {
+        BlockPos station = null;
+        if (job.isFinalStep(step) && isFree(job.destination))
+            station = job.destination;
+        if (station == null) {
+            for (int dependency : job.getStep(step).dependencies) {
+                BlockPos pos = job.getStation(dependency);
+                if (job.getState(dependency) == CraftingJob.StepState.DONE && pos != null && isFree(pos)) {
+                    station = pos;
+                    break;
+                }
+            }
+        }
+        if (station == null) {
+            for (BlockPos pos : controller.getCrafterNodes()) {
+                if (isFree(pos)) {
+                    station = pos;
+                    break;
+                }
+            }
+        }
+        if (station == null) return;
+        busyStations.add(station);
+        job.setStation(step, station);
+    }
+
+    private boolean isFree(BlockPos pos) {
+        if (busyStations.contains(pos) || !controller.isLoaded(pos)) return false;
+        CraftingStationTile station = controller.getCraftingStation(pos);
+        return station != null && !isInUse(station);
+    }
+
+    /**
+     * @return if a player has @param station open - what's in it is theirs to craft with while they do
+     */
+    private boolean isInUse(CraftingStationTile station) {
+        if (controller.getWorld() == null) return false;
+        for (PlayerEntity player : controller.getWorld().getPlayers()) {
+            if (player.openContainer instanceof CraftingStationContainer && ((CraftingStationContainer) player.openContainer).tile == station)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Craft what @param step of @param job can with what's arrived, send the results on, and ask for whatever's still missing
+     */
+    private void run(CraftingJob job, int step) {
+        BlockPos stationPos = job.getStation(step);
+        CraftingStationTile station = controller.getCraftingStation(stationPos);
+        if (station == null) { //Removed or unloaded, anything already delivered stays there - start again somewhere else
+            busyStations.remove(stationPos);
+            job.delivered(step, job.getUndelivered(step)); //What it made went with it
+            job.setStation(step, null);
+            return;
+        }
+        if (isInUse(station)) return; //A player opened it since, wait for them to finish
+        CraftingPlanner.Step planStep = job.getStep(step);
+        int crafted = station.craftPattern(planStep.pattern, planStep.crafts - job.getCraftsDone(step));
+        if (crafted > 0)
+            job.addCraftsDone(step, crafted);
+        deliver(job, step, stationPos, station);
+        if (job.getState(step) == CraftingJob.StepState.DONE) {
+            busyStations.remove(stationPos);
+            return;
+        }
+        requestIngredients(job, step, stationPos, station);
+    }
+
+    /**
+     * Send on what's left of what finished @param step of @param job made, from the station it was made at
+     */
+    private void deliverLeftovers(CraftingJob job, int step) {
+        BlockPos stationPos = job.getStation(step);
+        CraftingStationTile station = controller.getCraftingStation(stationPos);
+        if (station == null) { //Removed or unloaded with it inside, the steps that needed it will fetch it from the providers instead
+            job.delivered(step, job.getUndelivered(step));
+            return;
+        }
+        if (!isInUse(station))
+            deliver(job, step, stationPos, station);
+    }
+
+    /**
+     * Send what @param step of @param job made at @param station on, and only that - the last step's to the job's destination,
+     * otherwise to the stations running the steps that need it, and into the network once none of them still do
+     */
+    private void deliver(CraftingJob job, int step, BlockPos stationPos, CraftingStationTile station) {
+        if (job.getUndelivered(step) <= 0) return;
+        if (job.isFinalStep(step) && stationPos.equals(job.destination)) { //Already where it's wanted
+            job.delivered(step, job.getUndelivered(step));
+            return;
+        }
+        ItemStackKey outputKey = job.getStep(step).pattern.getOutputKey();
+        ItemStackHandler handler = station.getInventoryStacks();
+        int present = 0;
+        for (int slot = 0; slot < handler.getSlots(); slot++) {
+            ItemStack stackInSlot = handler.getStackInSlot(slot);
+            if (!stackInSlot.isEmpty() && ItemStackKey.find(stackInSlot) == outputKey)
+                present += stackInSlot.getCount();
+        }
+        if (present < job.getUndelivered(step)) //Something took some, so stop counting on it
+            job.delivered(step, job.getUndelivered(step) - present);
+        if (job.isFinalStep(step)) {
+            send(job, step, stationPos, handler, job.destination, job.getUndelivered(step));
+            return;
+        }
+        boolean stillNeeded = false;
+        IntList dependents = job.getDependents(step);
+        for (int i = 0; i < dependents.size() && job.getUndelivered(step) > 0; i++) {
+            int dependent = dependents.getInt(i);
+            if (job.getState(dependent) == CraftingJob.StepState.DONE) continue;
+            stillNeeded = true;
+            if (job.getState(dependent) != CraftingJob.StepState.RUNNING) continue;
+            BlockPos dependentPos = job.getStation(dependent);
+            if (dependentPos.equals(stationPos)) { //It took this station over, so it's already there
+                job.delivered(step, job.getUndelivered(step));
+                return;
+            }
+            CraftingStationTile dependentStation = controller.getCraftingStation(dependentPos);
+            if (dependentStation == null) continue;
+            CraftingPlanner.Step dependentStep = job.getStep(dependent);
+            int wanted = getMissing(dependentStep.pattern, dependentStep.crafts - job.getCraftsDone(dependent), dependentPos, dependentStation).getInt(outputKey);
+            if (wanted > 0)
+                send(job, step, stationPos, handler, dependentPos, wanted);
+        }
+        if (stillNeeded || job.getState(step) != CraftingJob.StepState.DONE) return;
+        //More than the job needed, so it's the inserters' - whatever they can't take is left where it is
+        int surplus = job.getUndelivered(step);
+        for (int slot = 0; slot < handler.getSlots() && surplus > 0; slot++) {
+            ItemStack stackInSlot = handler.getStackInSlot(slot);
+            if (stackInSlot.isEmpty() || ItemStackKey.find(stackInSlot) != outputKey) continue;
+            int amount = Math.min(surplus, stackInSlot.getCount());
+            controller.extractItemFromPos(ItemHandlerUtil.size(stackInSlot, amount), stationPos, slot);
+            surplus -= amount;
+        }
+        job.delivered(step, job.getUndelivered(step));
+    }
+
+    /**
+     * Send up to @param count of what @param step of @param job made, from @param handler at @param stationPos, to @param toPos
+     */
+    private void send(CraftingJob job, int step, BlockPos stationPos, ItemStackHandler handler, BlockPos toPos, int count) {
+        ItemStackKey outputKey = job.getStep(step).pattern.getOutputKey();
+        count = Math.min(count, job.getUndelivered(step));
+        for (int slot = 0; slot < handler.getSlots() && count > 0; slot++) {
+            ItemStack stackInSlot = handler.getStackInSlot(slot);
+            if (stackInSlot.isEmpty() || ItemStackKey.find(stackInSlot) != outputKey) continue;
+            ItemStack extracted = handler.extractItem(slot, Math.min(count, stackInSlot.getCount()), false);
+            if (!controller.transferItemStack(stationPos, toPos, extracted)) {
+                handler.insertItem(slot, extracted, false); //Try again next tick
+                return;
+            }
+            job.delivered(step, extracted.getCount());
+            count -= extracted.getCount();
+        }
+    }
+
+    /**
+     * Ask the providers for everything the station running @param step of @param job is missing, except what the steps it depends on
+     * are still to send it
+     */
+    private void requestIngredients(CraftingJob job, int step, BlockPos stationPos, CraftingStationTile station) {
+        CraftingPlanner.Step planStep = job.getStep(step);
+        Object2IntOpenHashMap<ItemStackKey> missing = getMissing(planStep.pattern, planStep.crafts - job.getCraftsDone(step), stationPos, station);
+        for (int dependency : planStep.dependencies) {
+            missing.addTo(job.getStep(dependency).pattern.getOutputKey(), -job.getStillToDeliver(dependency));
+        }
+        for (Object2IntMap.Entry<ItemStackKey> entry : missing.object2IntEntrySet()) {
+            if (entry.getIntValue() > 0)
+                controller.provideItemStacksToPos(ItemHandlerUtil.size(planStep.pattern.getPrototype(entry.getKey()), entry.getIntValue()), stationPos);
+        }
+    }
+
+    /**
+     * @return what @param station is missing for the next @param craftsLeft crafts of @param pattern, counting what's on its way -
+     * at most a stack of output's worth at a time, so the station doesn't fill up
+     */
+    private Object2IntOpenHashMap<ItemStackKey> getMissing(CraftingPattern pattern, int craftsLeft, BlockPos stationPos, CraftingStationTile station) {
+        ItemStack output = pattern.getOutput();
+        int crafts = Math.min(craftsLeft, Math.max(output.getMaxStackSize() / output.getCount(), 1));
+        Object2IntOpenHashMap<ItemStackKey> have = new Object2IntOpenHashMap<>(); //Already at the station, or on the way
+        ItemStackHandler handler = station.getInventoryStacks();
+        for (int slot = 0; slot < handler.getSlots(); slot++) {
+            ItemStack stackInSlot = handler.getStackInSlot(slot);
+            if (stackInSlot.isEmpty()) continue;
+            ItemStackKey key = ItemStackKey.find(stackInSlot);
+            if (key != null && pattern.getInputs().containsKey(key))
+                have.addTo(key, stackInSlot.getCount());
+        }
+        for (ItemStack inFlight : controller.getItemStacksInFlight(stationPos)) {
+            ItemStackKey key = ItemStackKey.find(inFlight);
+            if (key != null && pattern.getInputs().containsKey(key))
+                have.addTo(key, inFlight.getCount());
+        }
+        Object2IntOpenHashMap<ItemStackKey> missing = new Object2IntOpenHashMap<>();
+        for (Object2IntMap.Entry<ItemStackKey> input : pattern.getInputs().object2IntEntrySet()) {
+            int needed = input.getIntValue() * crafts - have.getInt(input.getKey());
+            if (needed > 0)
+                missing.put(input.getKey(), needed);
+        }
+        return missing;
+    }
+
+    /**
+     * @return every request and job still to do, as what's left of what was asked for
+     */
+    public ListNBT serialize() {
+        ListNBT list = new ListNBT();
+        for (PendingPlan pending : restored) {
+            list.add(serializeRequest(pending.output, pending.destination, pending.requester));
+        }
+        for (PendingPlan pending : planning) {
+            list.add(serializeRequest(pending.output, pending.destination, pending.requester));
+        }
+        for (CraftingJob job : jobs) {
+            int finalStep = job.getStepCount() - 1;
+            int left = job.output.getCount() - job.getCraftsDone(finalStep) * job.getStep(finalStep).pattern.getOutput().getCount(); //What's been made is already on its way
+            if (left > 0)
+                list.add(serializeRequest(ItemHandlerUtil.size(job.output, left), job.destination, job.requester));
+        }
+        return list;
+    }
+
+    private static CompoundNBT serializeRequest(ItemStack output, BlockPos destination, @Nullable UUID requester) {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.put("output", output.serializeNBT());
+        nbt.putInt("count", output.getCount()); //The stack's own count is a byte
+        nbt.put("destination", NBTUtil.writeBlockPos(destination));
+        if (requester != null)
+            nbt.putUniqueId("requester", requester);
+        return nbt;
+    }
+
+    /**
+     * Take the requests in @param nbtList on again, see serialize
+     */
+    public void read(ListNBT nbtList) {
+        restored.clear();
+        for (int i = 0; i < nbtList.size(); i++) {
+            CompoundNBT nbt = nbtList.getCompound(i);
+            ItemStack output = ItemStack.read(nbt.getCompound("output"));
+            if (output.isEmpty()) continue; //Its item is gone
+            output.setCount(nbt.getInt("count"));
+            if (output.isEmpty()) continue;
+            UUID requester = nbt.hasUniqueId("requester") ? nbt.getUniqueId("requester") : null;
+            restored.add(new PendingPlan(nextId++, output, NBTUtil.readBlockPos(nbt.getCompound("destination")), requester));
+        }
+    }
+
+    /**
+     * Tell the player with @param requester's UUID, if they're online, @param message
+     */
+    private void notify(@Nullable UUID requester, TranslationTextComponent message) {
+        if (requester == null || controller.getWorld() == null || controller.getWorld().getServer() == null) return;
+        ServerPlayerEntity player = controller.getWorld().getServer().getPlayerList().getPlayerByUUID(requester);
+        if (player != null)
+            player.sendStatusMessage(message, false);
+    }
+}
@@ -0,0 +1,177 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import com.direwolf20.logisticslasers.Config;
+import it.unimi.dsi.fastutil.objects.Object2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.items.IItemHandler;
+
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Answers "how many of this item fit in that inventory" from a summary of each destination's free space, instead of asking the
+ * inventory about every slot each time, like ItemHandlerUtil.simulateInsert has to.
+ * A summary records the empty slots and the room left in each partly filled one, by item. Deliveries are applied to it as they happen,
+ * anything leaving the inventory throws it away, and it's rebuilt after a few ticks anyway to catch changes made outside the network.
+ * Only inventories that look like plain storage get a summary - enough slots, none holding more than a stack - as machines tend to
+ * have slots that only take certain items, which a summary can't know about. Everything else gets -1, meaning simulate as usual.
+ */
+public class DestinationCapacity {
+    private static final int MAX_SLOT_LIMIT = 64; //Bigger slots (drawers and the like) store more than a stack, which needs a real simulation to get right
+
+    private final HashMap<BlockPos, Summary> summaries = new HashMap<>();
+
+    private static class Summary {
+        private final IItemHandler handler;
+        private final long builtTime;
+        private final int slotLimit; //Every slot's limit, summaries are only made for inventories where they're all the same
+        private int emptySlots;
+        private int firstEmptySlot; //Used to ask the inventory whether it takes an item at all - moved on when deliveries fill it
+        private final Object2IntOpenHashMap<ItemStackKey> partialRoom = new Object2IntOpenHashMap<>(); //How many more of each item fit in the slots that already hold some
+        private final Object2BooleanOpenHashMap<ItemStackKey> acceptsInEmpty = new Object2BooleanOpenHashMap<>(); //Learned from one simulated insert per item
+
+        private Summary(IItemHandler handler, int slotLimit, long builtTime) {
+            this.handler = handler;
+            this.slotLimit = slotLimit;
+            this.builtTime = builtTime;
+        }
+
+        private int perSlot(ItemStack stack) {
+            return Math.min(slotLimit, stack.getMaxStackSize());
+        }
+
+        private boolean acceptsInEmpty(ItemStackKey key, ItemStack stack) {
+            if (emptySlots <= 0) return false;
+            if (acceptsInEmpty.containsKey(key))
+                return acceptsInEmpty.getBoolean(key);
+            int slot = findEmptySlot();
+            if (slot == -1) { //Deliveries filled more slots than we counted, so there's no empty one to ask about
+                emptySlots = 0;
+                return false;
+            }
+            boolean accepts = ItemHandlerAdapter.of(handler).insertable(slot, ItemHandlerUtil.size(stack, 1)) > 0;
+            acceptsInEmpty.put(key, accepts);
+            return accepts;
+        }
+
+        /**
+         * @return a slot that's empty right now, from firstEmptySlot on, or -1 if there are none. Slots before it can't have emptied,
+         * as anything leaving the inventory throws the summary away.
+         */
+        private int findEmptySlot() {
+            for (int slot = Math.max(firstEmptySlot, 0); slot < handler.getSlots(); slot++) {
+                if (handler.getStackInSlot(slot).isEmpty()) {
+                    firstEmptySlot = slot;
+                    return slot;
+                }
+            }
+            firstEmptySlot = handler.getSlots();
+            return -1;
+        }
+
+        /**
+         * Take room for @param count of @param stack, filling partly full slots first and then empty ones, like an insert does
+         */
+        private void use(ItemStackKey key, ItemStack stack, int count, Object2IntOpenHashMap<ItemStackKey> room, int[] empty) {
+            int fromPartial = Math.min(Math.max(room.getInt(key), 0), count);
+            room.addTo(key, -fromPartial);
+            count -= fromPartial;
+            if (count <= 0) return;
+            int perSlot = perSlot(stack);
+            int slotsNeeded = (count + perSlot - 1) / perSlot;
+            empty[0] -= slotsNeeded;
+            room.addTo(key, slotsNeeded * perSlot - count); //The last new slot may only be partly filled
+        }
+    }
+
+    /**
+     * @return how many of @param stack will fit in @param handler at @param pos, after the @param inFlight stacks arrive,
+     * or -1 if this inventory has no summary and needs a full simulation
+     */
+    public int getFit(BlockPos pos, IItemHandler handler, ItemStack stack, Collection<ItemStack> inFlight, long gameTime) {
+        Summary summary = getSummary(pos, handler, gameTime);
+        if (summary == null) return -1;
+
+        Object2IntOpenHashMap<ItemStackKey> room = new Object2IntOpenHashMap<>();
+        int[] empty = {summary.emptySlots};
+        for (ItemStack inFlightStack : inFlight) {
+            ItemStackKey key = ItemStackKey.of(inFlightStack);
+            if (!room.containsKey(key))
+                room.put(key, summary.partialRoom.getInt(key));
+            summary.use(key, inFlightStack, inFlightStack.getCount(), room, empty);
+        }
+        ItemStackKey key = ItemStackKey.of(stack);
+        int fit = room.containsKey(key) ? room.getInt(key) : summary.partialRoom.getInt(key);
+        fit = Math.max(fit, 0);
+        if (empty[0] > 0 && summary.acceptsInEmpty(key, stack))
+            fit += empty[0] * summary.perSlot(stack);
+        return Math.min(fit, stack.getCount());
+    }
+
+    /**
+     * @param inserted of @param stack were delivered to the inventory at @param pos - and if @param rejected, some didn't fit when we thought they would
+     */
+    public void onInserted(BlockPos pos, ItemStack stack, int inserted, boolean rejected) {
+        Summary summary = summaries.get(pos);
+        if (summary == null) return;
+        if (rejected) { //The summary was wrong, so start over
+            summaries.remove(pos);
+            return;
+        }
+        if (inserted <= 0) return;
+        int[] empty = {summary.emptySlots};
+        summary.use(ItemStackKey.of(stack), stack, inserted, summary.partialRoom, empty);
+        summary.emptySlots = Math.max(empty[0], 0);
+        if (summary.emptySlots == 0)
+            summary.acceptsInEmpty.clear();
+    }
+
+    /**
+     * Items left, or something else about the inventory at @param pos changed, so its summary is wrong
+     */
+    public void invalidate(BlockPos pos) {
+        summaries.remove(pos);
+    }
+
+    public void clear() {
+        summaries.clear();
+    }
+
+    private Summary getSummary(BlockPos pos, IItemHandler handler, long gameTime) {
+        Summary summary = summaries.get(pos);
+        if (summary != null && summary.handler == handler && gameTime - summary.builtTime < Config.CAPACITY_SUMMARY_TTL.get())
+            return summary;
+        summaries.remove(pos);
+        if (handler.getSlots() < Config.CAPACITY_SUMMARY_MIN_SLOTS.get()) return null;
+        summary = build(handler, gameTime);
+        if (summary != null)
+            summaries.put(pos, summary);
+        return summary;
+    }
+
+    /**
+     * @return a summary of @param handler's free space, or null if it's not the kind of inventory a summary works for
+     */
+    private static Summary build(IItemHandler handler, long gameTime) {
+        int slotLimit = handler.getSlotLimit(0);
+        if (slotLimit <= 0 || slotLimit > MAX_SLOT_LIMIT) return null;
+        Summary summary = new Summary(handler, slotLimit, gameTime);
+        summary.firstEmptySlot = -1;
+        for (int slot = 0; slot < handler.getSlots(); slot++) {
+            if (handler.getSlotLimit(slot) != slotLimit) return null;
+            ItemStack stackInSlot = handler.getStackInSlot(slot);
+            if (stackInSlot.isEmpty()) {
+                summary.emptySlots++;
+                if (summary.firstEmptySlot == -1)
+                    summary.firstEmptySlot = slot;
+            } else {
+                int room = summary.perSlot(stackInSlot) - stackInSlot.getCount();
+                if (room > 0)
+                    summary.partialRoom.addTo(ItemStackKey.of(stackInSlot), room);
+            }
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,46 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.Ingredient;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The items each recipe ingredient can be, worked out once per ingredient rather than expanding its tags every time it's requested.
+ * Ingredients have no equals(), so each recipe's own ingredients are the keys - they're held weakly, and go away with the recipes
+ * when those are reloaded. Everything is forgotten on a reload anyway, as the tags the ingredients expand to may have changed.
+ */
+public class IngredientCache {
+    private static final WeakHashMap<Ingredient, Set<Item>> ITEMS = new WeakHashMap<>();
+
+    /**
+     * @return every item @param ingredient could match, read only - or null if it's not a simple ingredient, and could match items
+     * its matching stacks don't list, so every item has to be tested
+     */
+    @Nullable
+    public static synchronized Set<Item> getItems(Ingredient ingredient) {
+        if (!ingredient.isSimple()) return null;
+        Set<Item> items = ITEMS.get(ingredient);
+        if (items == null) {
+            items = new HashSet<>();
+            for (ItemStack stack : ingredient.getMatchingStacks()) {
+                items.add(stack.getItem());
+            }
+            items = Collections.unmodifiableSet(items);
+            ITEMS.put(ingredient, items);
+        }
+        return items;
+    }
+
+    /**
+     * Tags were reloaded, so ingredients may expand to different items
+     */
+    public static synchronized void clear() {
+        ITEMS.clear();
+    }
+}
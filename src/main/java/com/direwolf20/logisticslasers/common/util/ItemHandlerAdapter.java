@@ -0,0 +1,156 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
+import net.minecraftforge.items.ItemStackHandler;
+import net.minecraftforge.items.wrapper.InvWrapper;
+
+/**
+ * Read-only questions about an inventory - what's in a slot, how many of something would go in or come out - answered without the
+ * copying that simulated inserts and extracts through IItemHandler do.
+ * Vanilla chests and barrels (Forge's InvWrapper) and plain ItemStackHandlers, like the crafting station's, are read directly,
+ * as we know exactly how they behave. Anything else, including subclasses of those which could behave differently, goes through the
+ * normal IItemHandler calls.
+ */
+public abstract class ItemHandlerAdapter {
+    protected final IItemHandler handler;
+
+    protected ItemHandlerAdapter(IItemHandler handler) {
+        this.handler = handler;
+    }
+
+    public static ItemHandlerAdapter of(IItemHandler handler) {
+        if (handler.getClass() == InvWrapper.class)
+            return new Inventory((InvWrapper) handler);
+        if (handler.getClass() == ItemStackHandler.class)
+            return new StackHandler((ItemStackHandler) handler);
+        return new Generic(handler);
+    }
+
+    /**
+     * @return an adapter for @param handler that always goes through the normal IItemHandler calls, for comparing against - see ItemHandlerBenchmark
+     */
+    public static ItemHandlerAdapter generic(IItemHandler handler) {
+        return new Generic(handler);
+    }
+
+    public IItemHandler getHandler() {
+        return handler;
+    }
+
+    public int getSlots() {
+        return handler.getSlots();
+    }
+
+    /**
+     * @return the stack in @param slot - which may be the inventory's own, so must not be changed
+     */
+    public ItemStack peek(int slot) {
+        return handler.getStackInSlot(slot);
+    }
+
+    /**
+     * @return how many of @param stack would go into @param slot right now
+     */
+    public abstract int insertable(int slot, ItemStack stack);
+
+    /**
+     * @return how many of @param stack, up to @param amount, could be taken from @param slot right now
+     */
+    public int extractable(int slot, ItemStack stack, int amount) {
+        ItemStack stackInSlot = peek(slot);
+        if (stackInSlot.isEmpty() || !ItemHandlerHelper.canItemStacksStack(stackInSlot, stack)) return 0;
+        return Math.min(Math.min(amount, stackInSlot.getCount()), stackInSlot.getMaxStackSize());
+    }
+
+    /**
+     * @return how many of @param stack are in the whole inventory
+     */
+    public int count(ItemStack stack) {
+        int count = 0;
+        for (int slot = 0; slot < getSlots(); slot++) {
+            ItemStack stackInSlot = peek(slot);
+            if (!stackInSlot.isEmpty() && ItemHandlerHelper.canItemStacksStack(stackInSlot, stack))
+                count += stackInSlot.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * How many of @param stack fit on top of @param stackInSlot in a slot that holds at most @param limit, or 0 if they don't stack
+     */
+    protected static int room(ItemStack stackInSlot, ItemStack stack, int limit) {
+        if (!stackInSlot.isEmpty() && !ItemHandlerHelper.canItemStacksStack(stack, stackInSlot)) return 0;
+        int max = Math.min(limit, stack.getMaxStackSize());
+        return Math.max(0, Math.min(stack.getCount(), max - stackInSlot.getCount()));
+    }
+
+    /**
+     * A vanilla inventory, asked directly - the same rules InvWrapper.insertItem follows
+     */
+    private static class Inventory extends ItemHandlerAdapter {
+        private final IInventory inventory;
+
+        private Inventory(InvWrapper handler) {
+            super(handler);
+            this.inventory = handler.getInv();
+        }
+
+        @Override
+        public int getSlots() {
+            return inventory.getSizeInventory();
+        }
+
+        @Override
+        public ItemStack peek(int slot) {
+            return inventory.getStackInSlot(slot);
+        }
+
+        @Override
+        public int insertable(int slot, ItemStack stack) {
+            if (stack.isEmpty()) return 0;
+            if (!inventory.isItemValidForSlot(slot, stack)) return 0;
+            ItemStack stackInSlot = inventory.getStackInSlot(slot);
+            return room(stackInSlot, stack, inventory.getInventoryStackLimit());
+        }
+    }
+
+    /**
+     * A plain ItemStackHandler - the same rules ItemStackHandler.insertItem follows
+     */
+    private static class StackHandler extends ItemHandlerAdapter {
+        private StackHandler(ItemStackHandler handler) {
+            super(handler);
+        }
+
+        @Override
+        public int insertable(int slot, ItemStack stack) {
+            if (stack.isEmpty() || !handler.isItemValid(slot, stack)) return 0;
+            return room(handler.getStackInSlot(slot), stack, handler.getSlotLimit(slot));
+        }
+    }
+
+    /**
+     * Anything else, through a simulated insert
+     */
+    private static class Generic extends ItemHandlerAdapter {
+        private Generic(IItemHandler handler) {
+            super(handler);
+        }
+
+        @Override
+        public int insertable(int slot, ItemStack stack) {
+            if (stack.isEmpty()) return 0;
+            return stack.getCount() - handler.insertItem(slot, stack, true).getCount();
+        }
+
+        @Override
+        public int extractable(int slot, ItemStack stack, int amount) {
+            ItemStack stackInSlot = handler.getStackInSlot(slot);
+            if (stackInSlot.isEmpty() || !ItemHandlerHelper.canItemStacksStack(stackInSlot, stack)) return 0;
+            return handler.extractItem(slot, amount, true).getCount();
+        }
+    }
+}
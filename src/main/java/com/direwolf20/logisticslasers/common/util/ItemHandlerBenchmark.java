@@ -0,0 +1,82 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemStackHandler;
+import net.minecraftforge.items.wrapper.InvWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times ItemHandlerAdapter's direct paths against the generic IItemHandler ones, on a vanilla chest sized inventory (an InvWrapper)
+ * and a plain ItemStackHandler like the crafting station's. Each is part filled with part stacks, and one pass asks every slot how many
+ * of an item would go in and come out, like a simulated insert and extract do.
+ * Run in game with /logisticslasers benchmark, as items need the game's registries.
+ */
+public class ItemHandlerBenchmark {
+    private static final int SLOTS = 27;
+
+    public static class Result {
+        public final String name;
+        public final long directNanos; //Per pass
+        public final long genericNanos;
+
+        private Result(String name, long directNanos, long genericNanos) {
+            this.name = name;
+            this.directNanos = directNanos;
+            this.genericNanos = genericNanos;
+        }
+
+        public double getSpeedup() {
+            return directNanos == 0 ? 0 : (double) genericNanos / directNanos;
+        }
+    }
+
+    /**
+     * @return the timings for each kind of inventory, each averaged over @param passes passes after as many again to warm up
+     */
+    public static List<Result> run(int passes) {
+        Inventory inventory = new Inventory(SLOTS);
+        ItemStackHandler stackHandler = new ItemStackHandler(SLOTS);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            ItemStack stack = slot % 3 == 0 ? new ItemStack(Items.COBBLESTONE, 32) : slot % 3 == 1 ? new ItemStack(Items.DIRT, 48) : ItemStack.EMPTY;
+            inventory.setInventorySlotContents(slot, stack.copy());
+            stackHandler.setStackInSlot(slot, stack.copy());
+        }
+        ItemStack probe = new ItemStack(Items.COBBLESTONE, 16);
+
+        List<Result> results = new ArrayList<>();
+        results.add(time("InvWrapper", new InvWrapper(inventory), probe, passes));
+        results.add(time("ItemStackHandler", stackHandler, probe, passes));
+        return results;
+    }
+
+    private static Result time(String name, IItemHandler handler, ItemStack probe, int passes) {
+        ItemHandlerAdapter direct = ItemHandlerAdapter.of(handler);
+        ItemHandlerAdapter generic = ItemHandlerAdapter.generic(handler);
+        long sink = 0; //Kept and checked, so the JIT can't throw the work away
+        sink += scan(direct, probe, passes) + scan(generic, probe, passes); //Warm up
+        long start = System.nanoTime();
+        sink += scan(direct, probe, passes);
+        long directNanos = (System.nanoTime() - start) / passes;
+        start = System.nanoTime();
+        sink += scan(generic, probe, passes);
+        long genericNanos = (System.nanoTime() - start) / passes;
+        if (sink == Long.MIN_VALUE) throw new IllegalStateException();
+        return new Result(name, directNanos, genericNanos);
+    }
+
+    private static long scan(ItemHandlerAdapter adapter, ItemStack probe, int passes) {
+        long total = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            for (int slot = 0; slot < adapter.getSlots(); slot++) {
+                total += adapter.insertable(slot, probe);
+                total += adapter.extractable(slot, probe, probe.getCount());
+            }
+        }
+        return total;
+    }
+}
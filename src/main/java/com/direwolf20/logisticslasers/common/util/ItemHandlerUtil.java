@@ -3,6 +3,8 @@ package com.direwolf20.logisticslasers.common.util;
 import com.google.common.collect.ArrayListMultimap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.crafting.Ingredient;
@@ -13,6 +15,11 @@ import net.minecraftforge.items.IItemHandler;
 import net.minecraftforge.items.ItemHandlerHelper;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
 
 
 public class ItemHandlerUtil {
@@ -20,17 +27,66 @@ public class ItemHandlerUtil {
     public static ItemStack extractItem(IItemHandler source, @Nonnull ItemStack incstack, boolean simulate) {
         if (source == null || incstack.isEmpty())
             return incstack;
+        return extractItem(ItemHandlerAdapter.of(source), incstack, simulate);
+    }
+
+    /**
+     * As above, through an @param adapter the caller already has, like NodeHandle's, rather than making one each call
+     */
+    @Nonnull
+    public static ItemStack extractItem(ItemHandlerAdapter adapter, @Nonnull ItemStack incstack, boolean simulate) {
+        if (adapter == null || incstack.isEmpty())
+            return incstack;
 
+        IItemHandler source = adapter.getHandler();
         int amtGotten = 0;
         int amtRemaining = incstack.getCount();
         ItemStack stack = incstack.copy();
-        for (int i = 0; i < source.getSlots(); i++) {
-            ItemStack stackInSlot = source.getStackInSlot(i);
+        for (int i = 0; i < adapter.getSlots(); i++) {
+            ItemStack stackInSlot = adapter.peek(i);
+            if (ItemHandlerHelper.canItemStacksStack(stackInSlot, stack)) {
+                int extractAmt = Math.min(amtRemaining, stackInSlot.getCount());
+                int extracted = simulate ? adapter.extractable(i, stack, extractAmt) : source.extractItem(i, extractAmt, false).getCount();
+                amtGotten += extracted;
+                amtRemaining -= extracted;
+                if (amtRemaining == 0) break;
+            }
+        }
+        stack.setCount(amtGotten);
+        return stack;
+    }
+
+    /**
+     * As above, but only looks at the candidate @param slots, see ProviderSlotIndex. Each is still checked, so stale candidates are harmless.
+     */
+    @Nonnull
+    public static ItemStack extractItem(IItemHandler source, @Nonnull ItemStack incstack, boolean simulate, IntList slots) {
+        if (source == null || incstack.isEmpty())
+            return incstack;
+        return extractItem(ItemHandlerAdapter.of(source), incstack, simulate, slots);
+    }
+
+    /**
+     * As above, through an @param adapter the caller already has
+     */
+    @Nonnull
+    public static ItemStack extractItem(ItemHandlerAdapter adapter, @Nonnull ItemStack incstack, boolean simulate, IntList slots) {
+        if (adapter == null || incstack.isEmpty())
+            return incstack;
+
+        IItemHandler source = adapter.getHandler();
+        int amtGotten = 0;
+        int amtRemaining = incstack.getCount();
+        ItemStack stack = incstack.copy();
+        for (int j = 0; j < slots.size(); j++) {
+            int i = slots.getInt(j);
+            if (i >= adapter.getSlots()) continue;
+            ItemStack stackInSlot = adapter.peek(i);
             if (ItemHandlerHelper.canItemStacksStack(stackInSlot, stack)) {
                 int extractAmt = Math.min(amtRemaining, stackInSlot.getCount());
-                ItemStack tempStack = source.extractItem(i, extractAmt, simulate);
-                amtGotten += tempStack.getCount();
-                amtRemaining -= tempStack.getCount();
+                int extracted = simulate ? adapter.extractable(i, stack, extractAmt) : source.extractItem(i, extractAmt, false).getCount();
+                amtGotten += extracted;
+                amtRemaining -= extracted;
                 if (amtRemaining == 0) break;
             }
         }
@@ -52,6 +108,26 @@ public class ItemHandlerUtil {
         return ItemStack.EMPTY;
     }
 
+    /**
+     * As above, but only looks at the candidate @param slots, see ProviderSlotIndex. Each is still checked, so stale candidates are harmless.
+     */
+    public static ItemStack extractIngredient(IItemHandler source, @Nonnull Ingredient ingredient, boolean simulate, IntList slots) {
+        if (source == null || ingredient.hasNoMatchingItems())
+            return ItemStack.EMPTY;
+
+        for (int j = 0; j < slots.size(); j++) {
+            int i = slots.getInt(j);
+            if (i >= source.getSlots()) continue;
+            ItemStack stackInSlot = source.getStackInSlot(i);
+            if (!stackInSlot.isEmpty() && ingredient.test(stackInSlot)) { //If this ingredient matches
+                ItemStack tempStack = source.extractItem(i, 1, simulate);
+                if (!tempStack.isEmpty())
+                    return tempStack;
+            }
+        }
+        return ItemStack.EMPTY;
+    }
+
     /**
      * Everything below here was shameless stolen from Mekanism and pupnewfster :)
      * https://github.com/mekanism/Mekanism/blob/1.16.x/src/main/java/mekanism/common/content/transporter/TransporterManager.java
@@ -66,6 +142,14 @@ public class ItemHandlerUtil {
      * @return The amount of items that failed to insert in the simulation.
      */
     public static int simulateInsert(IItemHandler handler, InventoryInfo inventoryInfo, ItemStack stack, int count, boolean inFlight) {
+        return simulateInsert(ItemHandlerAdapter.of(handler), inventoryInfo, stack, count, inFlight);
+    }
+
+    /**
+     * As above, through an @param adapter the caller already has, like NodeHandle's - simulated inserts without copying stacks, where we know the inventory
+     */
+    public static int simulateInsert(ItemHandlerAdapter adapter, InventoryInfo inventoryInfo, ItemStack stack, int count, boolean inFlight) {
+        IItemHandler handler = adapter.getHandler();
         int maxStackSize = stack.getMaxStackSize();
         for (int slot = 0; slot < handler.getSlots(); slot++) {
             if (count == 0) {
@@ -138,8 +222,7 @@ public class ItemHandlerUtil {
                 needsSimulation = true;
             }
             if (needsSimulation) {
-                ItemStack simulatedRemainder = handler.insertItem(slot, stack, true);
-                int accepted = stack.getCount() - simulatedRemainder.getCount();
+                int accepted = adapter.insertable(slot, stack);
                 if (accepted == 0) {
                     // Insert will fail; bail
                     continue;
@@ -147,7 +230,7 @@ public class ItemHandlerUtil {
                     //If we accepted less than the amount we expected to, the slot actually has a lower limit
                     // so we mark the amount we accepted plus the amount already in the slot as the slot's
                     // actual limit
-                    max = handler.getStackInSlot(slot).getCount() + accepted;
+                    max = adapter.peek(slot).getCount() + accepted;
                 }
                 if (destCount == 0) {
                     //If we actually are going to insert it, because there are currently no items
@@ -199,21 +282,22 @@ public class ItemHandlerUtil {
         }
     }
 
+    /**
+     * A count of items by type (item + nbt), with one prototype stack per type.
+     * Counts are kept separately from the stacks, so adding and looking up an item is a single hash lookup no matter how many nbt variants it has.
+     */
     public static class InventoryCounts {
-        private final ArrayListMultimap<Item, ItemStack> itemMap = ArrayListMultimap.create();
-        private int totalCount = 0;
+        private final Object2IntLinkedOpenHashMap<ItemStackKey> counts = new Object2IntLinkedOpenHashMap<>();
+        private final HashMap<ItemStackKey, ItemStack> prototypes = new HashMap<>(); //A single item of each key, its nbt is the key's nbt
+        private final ArrayListMultimap<Item, ItemStackKey> keysByItem = ArrayListMultimap.create();
+        private long totalCount = 0;
 
         public InventoryCounts() {
 
         }
 
         public InventoryCounts(IItemHandler handler) {
-            for (int i = 0; i < handler.getSlots(); i++) {
-                ItemStack stack = handler.getStackInSlot(i);
-                if (!stack.isEmpty()) {
-                    setCount(stack);
-                }
-            }
+            addHandler(handler);
         }
 
         public InventoryCounts(ListNBT nbtList) {
@@ -228,10 +312,11 @@ public class ItemHandlerUtil {
         public ListNBT serialize() {
             ListNBT nbtList = new ListNBT();
             int i = 0;
-            for (ItemStack stack : itemMap.values()) {
+            for (Object2IntMap.Entry<ItemStackKey> entry : counts.object2IntEntrySet()) {
+                ItemStack stack = prototypes.get(entry.getKey());
                 CompoundNBT nbt = new CompoundNBT();
-                nbt.put("itemStack", stack.serializeNBT());
-                nbt.putInt("count", stack.getCount());
+                nbt.put("itemStack", size(stack, entry.getIntValue()).serializeNBT());
+                nbt.putInt("count", entry.getIntValue());
                 nbtList.add(i, nbt);
                 i++;
             }
@@ -256,47 +341,116 @@ public class ItemHandlerUtil {
             }
         }
 
+        /**
+         * Built fresh on every call, prefer getStacks() or getCount() where possible
+         *
+         * @return the counts as itemstacks grouped by item, the stack sizes are the counts
+         */
         public ArrayListMultimap<Item, ItemStack> getItemCounts() {
+            ArrayListMultimap<Item, ItemStack> itemMap = ArrayListMultimap.create();
+            for (ItemStack stack : getStacks()) {
+                itemMap.put(stack.getItem(), stack);
+            }
             return itemMap;
         }
 
+        /**
+         * @return a new itemstack per key, whose size is the count. The stacks are copies, so are safe to change
+         */
+        public List<ItemStack> getStacks() {
+            List<ItemStack> stacks = new ArrayList<>(counts.size());
+            for (Object2IntMap.Entry<ItemStackKey> entry : counts.object2IntEntrySet()) {
+                stacks.add(size(prototypes.get(entry.getKey()), entry.getIntValue()));
+            }
+            return stacks;
+        }
+
+        /**
+         * @return a new itemstack for each nbt variant of @param item, whose size is the count
+         */
+        public List<ItemStack> getStacks(Item item) {
+            List<ItemStackKey> keys = keysByItem.get(item);
+            List<ItemStack> stacks = new ArrayList<>(keys.size());
+            for (ItemStackKey key : keys) {
+                stacks.add(size(prototypes.get(key), counts.getInt(key)));
+            }
+            return stacks;
+        }
+
+        /**
+         * @return a new itemstack for @param key whose size is the count, or an empty stack if there are none
+         */
+        public ItemStack getStack(ItemStackKey key) {
+            int count = counts.getInt(key);
+            return count <= 0 ? ItemStack.EMPTY : size(prototypes.get(key), count);
+        }
+
+        /**
+         * @return every key with a count, read only
+         */
+        public Set<ItemStackKey> getKeys() {
+            return Collections.unmodifiableSet(counts.keySet());
+        }
+
+        public boolean isEmpty() {
+            return counts.isEmpty();
+        }
+
+        /**
+         * Adds @param stack to the counts
+         */
         public void setCount(ItemStack stack) {
             if (stack.isEmpty()) return;
-            for (ItemStack cacheStack : itemMap.get(stack.getItem())) {
-                if (ItemHandlerHelper.canItemStacksStack(cacheStack, stack)) {
-                    cacheStack.grow(stack.getCount());
-                    totalCount += stack.getCount();
-                    return;
-                }
+            ItemStackKey key = ItemStackKey.of(stack); //Interned keys have their own copy of the nbt, so changes to the caller's stack can't change the key
+            if (!counts.containsKey(key)) {
+                ItemStack prototype = size(stack, 1);
+                prototypes.put(key, prototype);
+                keysByItem.put(prototype.getItem(), key);
             }
-            itemMap.put(stack.getItem(), stack.copy());
+            counts.addTo(key, stack.getCount());
             totalCount += stack.getCount();
         }
 
+        /**
+         * Removes up to @param count of @param stack from the counts
+         *
+         * @return what was removed
+         */
         public ItemStack removeStack(ItemStack stack, int count) {
-            ItemStack returnStack = ItemStack.EMPTY;
-            for (ItemStack cacheStack : itemMap.get(stack.getItem())) {
-                if (ItemHandlerHelper.canItemStacksStack(cacheStack, stack)) {
-                    returnStack = cacheStack.split(count);
-                    break;
-                }
+            ItemStackKey key = ItemStackKey.find(stack);
+            if (key == null) return ItemStack.EMPTY; //Never seen, so can't be in here
+            int current = counts.getInt(key);
+            int removed = Math.min(current, count);
+            if (removed <= 0) return ItemStack.EMPTY;
+            ItemStack returnStack = size(prototypes.get(key), removed);
+            if (removed == current) {
+                counts.removeInt(key);
+                ItemStack prototype = prototypes.remove(key);
+                keysByItem.remove(prototype.getItem(), key);
+            } else {
+                counts.put(key, current - removed);
             }
-            if (returnStack.equals(ItemStack.EMPTY)) return returnStack;
-
-            itemMap.get(returnStack.getItem()).removeIf(o -> o.isEmpty());
-            totalCount -= returnStack.getCount();
+            totalCount -= removed;
             return returnStack;
         }
 
+        /**
+         * Set the count of @param stack to exactly @param count, removing it entirely if @param count is 0
+         */
+        public void putCount(ItemStack stack, int count) {
+            int current = getCount(stack);
+            if (current > 0)
+                removeStack(stack, current);
+            if (count > 0)
+                setCount(size(stack, count));
+        }
+
         public int getCount(ItemStack stack) {
-            for (ItemStack cacheStack : itemMap.get(stack.getItem())) {
-                if (ItemHandlerHelper.canItemStacksStack(cacheStack, stack))
-                    return cacheStack.getCount();
-            }
-            return 0;
+            ItemStackKey key = ItemStackKey.find(stack);
+            return key == null ? 0 : counts.getInt(key);
         }
 
-        public int getTotalCount() {
+        public long getTotalCount() {
             return totalCount;
         }
     }
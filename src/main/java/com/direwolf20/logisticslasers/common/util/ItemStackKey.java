@@ -1,21 +1,133 @@
 package com.direwolf20.logisticslasers.common.util;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.*;
 
+import javax.annotation.Nullable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Objects;
 
+/**
+ * Identifies a type of item - the item and its nbt - for use as a map key.
+ * Keys from of() are interned: there's only ever one per type, its nbt is a private copy, and two of them are equal only if they're the same object.
+ * Interned keys are weakly held, so they're forgotten once nothing uses them.
+ * The hash only looks at the top level of the nbt (names, types, simple values), so it's cheap to work out for deep tags - equals() sorts out the rest.
+ */
 public class ItemStackKey {
     public final Item item;
     public final CompoundNBT nbt;
     private final int hash;
+    private final boolean interned;
 
+    private static final HashMap<Item, Int2ObjectOpenHashMap<ArrayList<KeyReference>>> INTERNED = new HashMap<>();
+    private static final ReferenceQueue<ItemStackKey> COLLECTED = new ReferenceQueue<>();
 
     public ItemStackKey(ItemStack stack) {
-        this.item = stack.getItem();
-        this.nbt = stack.getTag();
-        this.hash = Objects.hash(item, nbt);
+        this(stack.getItem(), stack.getTag(), false);
+    }
+
+    private ItemStackKey(Item item, CompoundNBT nbt, boolean interned) {
+        this.item = item;
+        this.nbt = nbt;
+        this.hash = hash(item, nbt);
+        this.interned = interned;
+    }
+
+    /**
+     * @return the interned key for @param stack, creating it if this is the first time we've seen this type of item.
+     * Doesn't allocate anything if the key already exists.
+     */
+    public static ItemStackKey of(ItemStack stack) {
+        Item item = stack.getItem();
+        CompoundNBT nbt = stack.getTag();
+        int hash = hash(item, nbt);
+        synchronized (INTERNED) {
+            purgeCollected();
+            Int2ObjectOpenHashMap<ArrayList<KeyReference>> buckets = INTERNED.computeIfAbsent(item, k -> new Int2ObjectOpenHashMap<>());
+            ArrayList<KeyReference> bucket = buckets.get(hash);
+            if (bucket == null) {
+                bucket = new ArrayList<>(1);
+                buckets.put(hash, bucket);
+            }
+            ItemStackKey key = findInBucket(bucket, nbt);
+            if (key == null) {
+                key = new ItemStackKey(item, nbt == null ? null : nbt.copy(), true);
+                bucket.add(new KeyReference(key));
+            }
+            return key;
+        }
+    }
+
+    /**
+     * @return the interned key for @param stack if there is one, without creating it. Never allocates.
+     * A map keyed only on interned keys can't contain the stack if this returns null.
+     */
+    @Nullable
+    public static ItemStackKey find(ItemStack stack) {
+        Item item = stack.getItem();
+        CompoundNBT nbt = stack.getTag();
+        int hash = hash(item, nbt);
+        synchronized (INTERNED) {
+            Int2ObjectOpenHashMap<ArrayList<KeyReference>> buckets = INTERNED.get(item);
+            if (buckets == null) return null;
+            ArrayList<KeyReference> bucket = buckets.get(hash);
+            return bucket == null ? null : findInBucket(bucket, nbt);
+        }
+    }
+
+    private static ItemStackKey findInBucket(ArrayList<KeyReference> bucket, CompoundNBT nbt) {
+        for (int i = 0; i < bucket.size(); i++) {
+            ItemStackKey key = bucket.get(i).get();
+            if (key != null && Objects.equals(key.nbt, nbt))
+                return key;
+        }
+        return null;
+    }
+
+    /**
+     * Remove the entries of keys the garbage collector has cleared since last time
+     */
+    private static void purgeCollected() {
+        Reference<? extends ItemStackKey> reference;
+        while ((reference = COLLECTED.poll()) != null) {
+            KeyReference keyReference = (KeyReference) reference;
+            Int2ObjectOpenHashMap<ArrayList<KeyReference>> buckets = INTERNED.get(keyReference.item);
+            if (buckets == null) continue;
+            ArrayList<KeyReference> bucket = buckets.get(keyReference.hash);
+            if (bucket == null) continue;
+            bucket.remove(keyReference);
+            if (bucket.isEmpty())
+                buckets.remove(keyReference.hash);
+        }
+    }
+
+    /**
+     * A hash of @param item and the top level of @param nbt. Nested compounds and lists only contribute their type and size.
+     */
+    private static int hash(Item item, @Nullable CompoundNBT nbt) {
+        int hash = 31 * item.hashCode();
+        if (nbt == null) return hash;
+        int nbtHash = 1; //So an empty tag hashes differently to no tag
+        for (String name : nbt.keySet()) {
+            INBT tag = nbt.get(name);
+            int valueHash;
+            if (tag instanceof NumberNBT || tag instanceof StringNBT)
+                valueHash = tag.hashCode();
+            else if (tag instanceof CollectionNBT)
+                valueHash = 31 * tag.getId() + ((CollectionNBT<?>) tag).size();
+            else if (tag instanceof CompoundNBT)
+                valueHash = 31 * tag.getId() + ((CompoundNBT) tag).size();
+            else
+                valueHash = tag == null ? 0 : tag.getId();
+            nbtHash += name.hashCode() ^ valueHash; //Summed, as compound tags don't keep their entries in any order
+        }
+        return hash + nbtHash;
     }
 
     @Override
@@ -25,9 +137,22 @@ public class ItemStackKey {
 
     @Override
     public boolean equals(Object obj) {
-        if (obj instanceof ItemStackKey) {
-            return (((ItemStackKey) obj).item == this.item) && Objects.equals(((ItemStackKey) obj).nbt, this.nbt);
+        if (this == obj) return true;
+        if (!(obj instanceof ItemStackKey)) return false;
+        ItemStackKey other = (ItemStackKey) obj;
+        if (other.hash != this.hash || other.item != this.item) return false;
+        if (other.interned && this.interned) return false; //There's only one interned key per type, so two different ones can't match
+        return Objects.equals(other.nbt, this.nbt);
+    }
+
+    private static class KeyReference extends WeakReference<ItemStackKey> {
+        private final Item item;
+        private final int hash;
+
+        private KeyReference(ItemStackKey key) {
+            super(key, COLLECTED);
+            this.item = key.item;
+            this.hash = key.hash;
         }
-        return false;
     }
 }
@@ -0,0 +1,339 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import com.direwolf20.logisticslasers.common.tiles.ControllerTile;
+import it.unimi.dsi.fastutil.objects.Object2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMaps;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.Ingredient;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.items.IItemHandler;
+
+import java.util.*;
+
+import static com.direwolf20.logisticslasers.common.util.MiscTools.isStackValidForCard;
+
+/**
+ * An incrementally maintained count of every item the controller's provider nodes make available to the network.
+ * Each provider keeps a snapshot of what was in each of its slots last time we looked, so a rescan only touches the network totals
+ * for slots that actually changed. Providers are rescanned in full when the network moves items in or out of them,
+ * and a few slots are rechecked each tick to pick up changes made outside the network (players, machines, hoppers).
+ */
+public class NetworkItemIndex {
+    private final ControllerTile controller;
+    private final HashMap<BlockPos, ProviderSnapshot> providers = new HashMap<>();
+    private final Set<BlockPos> dirtyProviders = new HashSet<>();
+    private final Object2IntOpenHashMap<ItemStackKey> totals = new Object2IntOpenHashMap<>();
+    private final HashMap<ItemStackKey, ItemStack> prototypes = new HashMap<>(); //A single item of each key, used to build itemstacks from the totals
+    private final HashMap<Item, Set<ItemStackKey>> keysByItem = new HashMap<>(); //Every key in the totals, by item, for resolving ingredients
+    private final ArrayDeque<BlockPos> scanQueue = new ArrayDeque<>(); //Providers still to be visited by the background rescan this pass
+    private int scanSlot = 0; //Where the background rescan is in the provider at the head of the scanQueue
+    private int version = 0; //Bumped every time the totals change, so views built from them know when they're stale
+
+    public NetworkItemIndex(ControllerTile controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Forget everything, every provider will be scanned again on next use
+     */
+    public void clear() {
+        providers.clear();
+        dirtyProviders.clear();
+        totals.clear();
+        prototypes.clear();
+        keysByItem.clear();
+        version++;
+        scanQueue.clear();
+        scanSlot = 0;
+    }
+
+    /**
+     * Drop the provider at @param pos from the index - its cards or attached inventory changed, so it'll be picked up from scratch
+     */
+    public void removeProvider(BlockPos pos) {
+        ProviderSnapshot snapshot = providers.remove(pos);
+        dirtyProviders.remove(pos);
+        if (snapshot == null) return;
+        for (Object2IntMap.Entry<ItemStackKey> entry : snapshot.counts.object2IntEntrySet()) {
+            adjustTotal(entry.getKey(), null, -entry.getIntValue());
+        }
+    }
+
+    /**
+     * Mark the provider at @param pos as changed, it'll be fully rescanned before its counts are next used.
+     * Does nothing if @param pos isn't a provider we're tracking.
+     */
+    public void markDirty(BlockPos pos) {
+        if (providers.containsKey(pos))
+            dirtyProviders.add(pos);
+    }
+
+    /**
+     * Bring the index up to date with the controller's current providers - new providers are scanned, removed ones dropped,
+     * and any provider marked dirty is rescanned.
+     */
+    public void refresh() {
+        Set<BlockPos> providerNodes = controller.getProviderNodes();
+        if (!providers.keySet().containsAll(providerNodes) || !providerNodes.containsAll(providers.keySet())) {
+            for (BlockPos pos : new ArrayList<>(providers.keySet())) {
+                if (!providerNodes.contains(pos))
+                    removeProvider(pos);
+            }
+            for (BlockPos pos : providerNodes) {
+                if (!providers.containsKey(pos))
+                    scanProvider(pos);
+            }
+        }
+        for (BlockPos pos : dirtyProviders.toArray(new BlockPos[0])) {
+            scanProvider(pos);
+        }
+        dirtyProviders.clear();
+    }
+
+    /**
+     * Background rescan to pick up changes the network didn't make itself. Checks at most @param slotBudget slots this call,
+     * continuing where it left off last time and cycling through every provider in turn.
+     */
+    public void tick(int slotBudget) {
+        refresh();
+        boolean refilled = false;
+        while (slotBudget > 0) {
+            if (scanQueue.isEmpty()) {
+                if (providers.isEmpty() || refilled) return; //Only go round every provider once per call, or nothing loaded would never use up the budget
+                scanQueue.addAll(providers.keySet());
+                scanSlot = 0;
+                refilled = true;
+            }
+            BlockPos pos = scanQueue.peek();
+            ProviderSnapshot snapshot = providers.get(pos);
+            if (snapshot == null || !controller.isLoaded(pos)) { //Don't load chunks just to count what's in them
+                scanQueue.poll();
+                scanSlot = 0;
+                slotBudget--;
+                continue;
+            }
+            IItemHandler handler = controller.getAttachedInventory(pos);
+            if (handler != snapshot.handler || (handler != null && handler.getSlots() != snapshot.keys.length)) { //The inventory this node faces changed or resized, start over with it
+                scanProvider(pos);
+                scanQueue.poll();
+                scanSlot = 0;
+                slotBudget -= Math.max(providers.get(pos).keys.length, 1); //A full rescan checks every slot, so it costs them all
+                continue;
+            }
+            int end = Math.min(snapshot.keys.length, scanSlot + slotBudget);
+            boolean newItems = false;
+            for (int slot = scanSlot; slot < end; slot++) {
+                newItems |= updateSlot(snapshot, slot, handler.getStackInSlot(slot));
+            }
+            if (newItems)
+                controller.getProviderSlotIndex().invalidate(pos); //Something outside the network put items in, so its slot index is missing them
+            slotBudget -= Math.max(end - scanSlot, 1);
+            scanSlot = end;
+            if (scanSlot >= snapshot.keys.length) {
+                scanQueue.poll();
+                scanSlot = 0;
+            }
+        }
+    }
+
+    /**
+     * Scan every slot of the provider at @param pos, applying whatever changed since last time to the network totals
+     */
+    private void scanProvider(BlockPos pos) {
+        IItemHandler handler = controller.getAttachedInventory(pos);
+        ProviderSnapshot snapshot = providers.get(pos);
+        if (snapshot == null || snapshot.handler != handler || (handler != null && handler.getSlots() != snapshot.keys.length)) {
+            removeProvider(pos);
+            snapshot = new ProviderSnapshot(handler, controller.getProviderFilters(pos));
+            providers.put(pos, snapshot);
+        }
+        if (handler == null) return;
+        for (int slot = 0; slot < snapshot.keys.length; slot++) {
+            updateSlot(snapshot, slot, handler.getStackInSlot(slot));
+        }
+    }
+
+    /**
+     * Compare @param stack against what we last saw in @param slot of @param snapshot, and apply the difference to the totals
+     *
+     * @return if an item turned up in a slot that didn't have it before
+     */
+    private boolean updateSlot(ProviderSnapshot snapshot, int slot, ItemStack stack) {
+        ItemStackKey oldKey = snapshot.keys[slot];
+        int oldCount = snapshot.slotCounts[slot];
+        if (stack.isEmpty()) {
+            if (oldKey == null) return false;
+            snapshot.set(slot, null, 0);
+            adjustTotal(oldKey, null, -oldCount);
+            return false;
+        }
+        //Same item as before - usually all that changes is the count, which needs no allocation at all
+        if (oldKey != null && oldKey == ItemStackKey.find(stack)) {
+            if (oldCount == stack.getCount()) return false;
+            snapshot.set(slot, oldKey, stack.getCount());
+            adjustTotal(oldKey, null, stack.getCount() - oldCount);
+            return false;
+        }
+        if (oldKey != null) {
+            snapshot.set(slot, null, 0);
+            adjustTotal(oldKey, null, -oldCount);
+        }
+        ItemStackKey newKey = ItemStackKey.of(stack); //Interned keys have their own copy of the nbt, so it can't be changed from under us
+        if (!snapshot.isAccepted(newKey, stack)) return false;
+        snapshot.set(slot, newKey, stack.getCount());
+        adjustTotal(newKey, stack, stack.getCount());
+        return true;
+    }
+
+    private void adjustTotal(ItemStackKey key, ItemStack stack, int amount) {
+        if (amount == 0) return;
+        version++;
+        int newCount = totals.addTo(key, amount) + amount;
+        if (newCount <= 0) {
+            totals.removeInt(key);
+            prototypes.remove(key);
+            Set<ItemStackKey> itemKeys = keysByItem.get(key.item);
+            if (itemKeys != null && itemKeys.remove(key) && itemKeys.isEmpty())
+                keysByItem.remove(key.item);
+        } else if (stack != null && !prototypes.containsKey(key)) {
+            prototypes.put(key, ItemHandlerUtil.size(stack, 1));
+            keysByItem.computeIfAbsent(key.item, k -> new HashSet<>()).add(key);
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the network totals by item, read only
+     */
+    public Object2IntMap<ItemStackKey> getTotals() {
+        return Object2IntMaps.unmodifiable(totals);
+    }
+
+    /**
+     * @return a single item of @param key, or EMPTY if the network has none
+     */
+    public ItemStack getPrototype(ItemStackKey key) {
+        return prototypes.getOrDefault(key, ItemStack.EMPTY);
+    }
+
+    /**
+     * @return every item in the network that matches @param ingredient - only the items it expands to are tested, unless it's an
+     * unusual ingredient that could match anything
+     */
+    public List<ItemStackKey> getMatchingKeys(Ingredient ingredient) {
+        List<ItemStackKey> matching = new ArrayList<>();
+        Set<Item> items = IngredientCache.getItems(ingredient);
+        if (items == null) {
+            for (ItemStackKey key : totals.keySet()) {
+                if (ingredient.test(prototypes.get(key)))
+                    matching.add(key);
+            }
+            return matching;
+        }
+        for (Item item : items) {
+            Set<ItemStackKey> itemKeys = keysByItem.get(item);
+            if (itemKeys == null) continue;
+            for (ItemStackKey key : itemKeys) {
+                if (ingredient.test(prototypes.get(key))) //The ingredient may care about nbt
+                    matching.add(key);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * @return how many of @param key each provider holding some has, by position
+     */
+    public Object2IntMap<BlockPos> getProviderCounts(ItemStackKey key) {
+        Object2IntOpenHashMap<BlockPos> providerCounts = new Object2IntOpenHashMap<>();
+        for (Map.Entry<BlockPos, ProviderSnapshot> entry : providers.entrySet()) {
+            int count = entry.getValue().counts.getInt(key);
+            if (count > 0)
+                providerCounts.put(entry.getKey(), count);
+        }
+        return providerCounts;
+    }
+
+    /**
+     * @return how many of @param key the provider at @param pos has, 0 if it isn't a provider we're tracking
+     */
+    public int getProviderCount(BlockPos pos, ItemStackKey key) {
+        ProviderSnapshot snapshot = providers.get(pos);
+        return snapshot == null ? 0 : snapshot.counts.getInt(key);
+    }
+
+    /**
+     * @return how many of @param stack the providers in this network currently have
+     */
+    public int getCount(ItemStack stack) {
+        ItemStackKey key = ItemStackKey.find(stack);
+        return key == null ? 0 : totals.getInt(key);
+    }
+
+    /**
+     * @return the current totals as an InventoryCounts, built from the distinct items rather than every slot
+     */
+    public ItemHandlerUtil.InventoryCounts toInventoryCounts() {
+        ItemHandlerUtil.InventoryCounts counts = new ItemHandlerUtil.InventoryCounts();
+        for (Object2IntMap.Entry<ItemStackKey> entry : totals.object2IntEntrySet()) {
+            ItemStack prototype = prototypes.get(entry.getKey());
+            if (prototype == null) continue;
+            counts.setCount(ItemHandlerUtil.size(prototype, entry.getIntValue()));
+        }
+        return counts;
+    }
+
+    /**
+     * What one provider's inventory held the last time we looked at it, slot by slot.
+     */
+    private static class ProviderSnapshot {
+        private final IItemHandler handler;
+        private final ArrayList<ItemStack> filters;
+        private final ItemStackKey[] keys;
+        private final int[] slotCounts;
+        private final Object2IntOpenHashMap<ItemStackKey> counts = new Object2IntOpenHashMap<>();
+        private final Object2BooleanOpenHashMap<ItemStackKey> accepted = new Object2BooleanOpenHashMap<>(); //Filter results, the filters can't change without the snapshot being rebuilt
+
+        private ProviderSnapshot(IItemHandler handler, ArrayList<ItemStack> filters) {
+            this.handler = handler;
+            this.filters = filters;
+            int slots = handler == null ? 0 : handler.getSlots();
+            this.keys = new ItemStackKey[slots];
+            this.slotCounts = new int[slots];
+        }
+
+        private void set(int slot, ItemStackKey key, int count) {
+            if (keys[slot] != null) {
+                int remaining = counts.addTo(keys[slot], -slotCounts[slot]) - slotCounts[slot];
+                if (remaining <= 0) counts.removeInt(keys[slot]);
+            }
+            keys[slot] = key;
+            slotCounts[slot] = count;
+            if (key != null)
+                counts.addTo(key, count);
+        }
+
+        /**
+         * A stack is available to the network if any of the provider cards in this node accepts it
+         */
+        private boolean isAccepted(ItemStackKey key, ItemStack stack) {
+            if (accepted.containsKey(key))
+                return accepted.getBoolean(key);
+            boolean valid = false;
+            for (ItemStack filter : filters) {
+                if (isStackValidForCard(filter, stack)) {
+                    valid = true;
+                    break;
+                }
+            }
+            accepted.put(key, valid);
+            return valid;
+        }
+    }
+}
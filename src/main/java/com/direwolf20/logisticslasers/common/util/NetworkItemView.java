@@ -0,0 +1,85 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import net.minecraft.item.ItemStack;
+
+import java.util.*;
+
+/**
+ * Search, sort and paging for the crafting station's list of network items.
+ * Shared by the client, when it has the whole list, and the server, when the network is too big to send and it answers page requests instead.
+ */
+public class NetworkItemView {
+    public static final int ITEMS_PER_PAGE = 81;
+
+    public enum SortType {
+        COUNT("#"),
+        NAME("A"),
+        MOD("@");
+
+        public final String label;
+
+        SortType(String label) {
+            this.label = label;
+        }
+
+        public SortType next() {
+            return values()[(ordinal() + 1) % values().length];
+        }
+
+        public static SortType byIndex(int index) {
+            return index >= 0 && index < values().length ? values()[index] : COUNT;
+        }
+    }
+
+    /**
+     * @return the @param stacks (whose counts are the network totals) that match @param search, sorted by @param sortType
+     * Search rules are SearchIndex's - words starting with each term, @mod, #tag
+     */
+    public static List<ItemStack> filterAndSort(Collection<ItemStack> stacks, String search, SortType sortType) {
+        String[] searchTerms = SearchIndex.getTerms(search);
+        List<ItemStack> result = new ArrayList<>(stacks.size());
+        for (ItemStack stack : stacks) {
+            if (SearchIndex.matches(stack, searchTerms))
+                result.add(stack);
+        }
+        result.sort(getComparator(sortType));
+        return result;
+    }
+
+    /**
+     * @return the stacks in @param searchIndex that match @param search, sorted by @param sortType
+     */
+    public static List<ItemStack> filterAndSort(SearchIndex<ItemStack> searchIndex, String search, SortType sortType) {
+        List<ItemStack> result = searchIndex.search(search);
+        result.sort(getComparator(sortType));
+        return result;
+    }
+
+    public static Comparator<ItemStack> getComparator(SortType sortType) {
+        Comparator<ItemStack> byCount = Comparator.comparingInt(ItemStack::getCount).reversed(); //Most first
+        switch (sortType) {
+            case NAME:
+                return Comparator.comparing((ItemStack stack) -> stack.getDisplayName().getString().toLowerCase(Locale.ROOT)).thenComparing(byCount);
+            case MOD:
+                return Comparator.comparing((ItemStack stack) -> stack.getItem().getCreatorModId(stack)).thenComparing(byCount);
+            default:
+                return byCount;
+        }
+    }
+
+    /**
+     * @return the highest page number for @param size items, pages are numbered from 0
+     */
+    public static int getMaxPage(int size) {
+        return Math.max(0, (size - 1) / ITEMS_PER_PAGE);
+    }
+
+    /**
+     * @return the items of @param list on @param page - none for pages past the end, the first page for negative ones
+     */
+    public static <T> List<T> getPage(List<T> list, int page) {
+        int min = (int) Math.min((long) Math.max(page, 0) * ITEMS_PER_PAGE, list.size());
+        int max = Math.min(min + ITEMS_PER_PAGE, list.size());
+        return list.subList(min, max);
+    }
+}
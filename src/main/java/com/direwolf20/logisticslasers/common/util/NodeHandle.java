@@ -0,0 +1,93 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import com.direwolf20.logisticslasers.common.tiles.ControllerTile;
+import com.direwolf20.logisticslasers.common.tiles.CraftingStationTile;
+import com.direwolf20.logisticslasers.common.tiles.InventoryNodeTile;
+import com.direwolf20.logisticslasers.common.tiles.basetiles.NodeTileBase;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.items.CapabilityItemHandler;
+import net.minecraftforge.items.IItemHandler;
+
+import javax.annotation.Nullable;
+
+/**
+ * A controller's cached view of one node in its network - the tile, what kind of node it is, and the inventory it works with.
+ * Saves looking up the tile entity and instanceof checking it every time the controller moves an item.
+ */
+public class NodeHandle {
+    public enum NodeKind {
+        CONTROLLER,
+        INVENTORY,
+        CRAFTER,
+        BASIC
+    }
+
+    public final NodeTileBase tile;
+    public final NodeKind kind;
+    private LazyOptional<IItemHandler> attachedHandler = LazyOptional.empty();
+    private ItemHandlerAdapter attachedAdapter = null; //For the handler we last returned, rebuilt if that changes
+
+    public NodeHandle(NodeTileBase tile) {
+        this.tile = tile;
+        if (tile instanceof ControllerTile)
+            kind = NodeKind.CONTROLLER;
+        else if (tile instanceof InventoryNodeTile)
+            kind = NodeKind.INVENTORY;
+        else if (tile instanceof CraftingStationTile)
+            kind = NodeKind.CRAFTER;
+        else
+            kind = NodeKind.BASIC;
+    }
+
+    /**
+     * @return if this handle still points at a live tile entity
+     */
+    public boolean isValid() {
+        return !tile.isRemoved() && !tile.isChunkUnloaded();
+    }
+
+    /**
+     * Get the item handler attached to this node - the inventory an inventory node faces, or a crafter's own inventory.
+     * The LazyOptional is kept until its owner invalidates it (InventoryNodeTile's facingInvalidator clears the node's side of it too)
+     *
+     * @return the item handler, or null if there isn't one or it has no slots
+     */
+    @Nullable
+    public IItemHandler getAttachedInventory() {
+        if (!attachedHandler.isPresent()) {
+            if (kind == NodeKind.INVENTORY)
+                attachedHandler = ((InventoryNodeTile) tile).getHandler();
+            else if (kind == NodeKind.CRAFTER)
+                attachedHandler = tile.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, null);
+            else
+                return null;
+        }
+        IItemHandler handler = attachedHandler.orElse(null);
+        if (handler == null || handler.getSlots() == 0) return null; //If its empty, return null
+        return handler;
+    }
+
+    /**
+     * @return an ItemHandlerAdapter for getAttachedInventory(), or null if there's no inventory
+     */
+    @Nullable
+    public ItemHandlerAdapter getAttachedAdapter() {
+        IItemHandler handler = getAttachedInventory();
+        if (handler == null) return null;
+        if (attachedAdapter == null || attachedAdapter.getHandler() != handler)
+            attachedAdapter = ItemHandlerAdapter.of(handler);
+        return attachedAdapter;
+    }
+
+    public boolean isInventoryNode() {
+        return kind == NodeKind.INVENTORY;
+    }
+
+    public boolean isCrafter() {
+        return kind == NodeKind.CRAFTER;
+    }
+
+    public boolean isController() {
+        return kind == NodeKind.CONTROLLER;
+    }
+}
@@ -0,0 +1,231 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import com.direwolf20.logisticslasers.Config;
+import com.direwolf20.logisticslasers.common.tiles.ControllerTile;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The controller's internal inventory - where items end up when nowhere in the network will take them.
+ * Items drain back out a few kinds per tick. A kind that couldn't go anywhere waits until either its retry time passes,
+ * or something leaves one of the inventories it could go to, rather than being retried every tick.
+ * The capacity is a limit on what the network takes on: while full, extractors stop pulling items, but items already travelling are
+ * still accepted so nothing is ever destroyed.
+ * Items that came back because their destination filled up on the way carry a bounce count. They wait an exponentially growing
+ * backoff before going out again, and aren't woken early by room opening up, so a saturated network doesn't keep sending the same items round.
+ */
+public class OverflowBuffer {
+    private final ControllerTile controller;
+    private ItemHandlerUtil.InventoryCounts items = new ItemHandlerUtil.InventoryCounts();
+    private final ArrayDeque<ItemStackKey> readyQueue = new ArrayDeque<>(); //Kinds to try sending out, in order
+    private final Set<ItemStackKey> queued = new HashSet<>(); //Everything in the readyQueue, to keep it unique
+    private final Object2LongOpenHashMap<ItemStackKey> retryAfter = new Object2LongOpenHashMap<>(); //Kinds that had nowhere to go, and the game time to try them again
+    private long nextRetry = Long.MAX_VALUE; //The soonest of the retryAfter times
+    private final Set<BlockPos> freedDestinations = new HashSet<>(); //Inventories something left since the blocked kinds were last checked
+    private boolean wakeAll = false;
+    private final Object2IntOpenHashMap<ItemStackKey> bounces = new Object2IntOpenHashMap<>(); //How many times each kind has come back from a full destination
+
+    public OverflowBuffer(ControllerTile controller) {
+        this.controller = controller;
+    }
+
+    public ItemHandlerUtil.InventoryCounts getItems() {
+        return items;
+    }
+
+    public void read(ListNBT nbtList) {
+        items = new ItemHandlerUtil.InventoryCounts(nbtList);
+        readyQueue.clear();
+        queued.clear();
+        retryAfter.clear();
+        nextRetry = Long.MAX_VALUE;
+        bounces.clear();
+        for (ItemStackKey key : items.getKeys()) {
+            enqueue(key);
+        }
+    }
+
+    public ListNBT serialize() {
+        return items.serialize();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    /**
+     * @return if the buffer is at or over capacity - extractors should hold off until it drains
+     */
+    public boolean isFull() {
+        return items.getTotalCount() >= Config.CONTROLLER_BUFFER_CAPACITY.get();
+    }
+
+    /**
+     * Store @param stack. Always succeeds, even when full, as the items have nowhere else to go.
+     */
+    public void insert(ItemStack stack) {
+        insert(stack, 0, 0);
+    }
+
+    /**
+     * Store @param stack, which has failed to insert at its destination @param bounceCount times.
+     * If it has bounced, it's held back until its backoff from @param gameTime has passed.
+     */
+    public void insert(ItemStack stack, int bounceCount, long gameTime) {
+        if (stack.isEmpty()) return;
+        items.setCount(stack);
+        ItemStackKey key = ItemStackKey.find(stack); //Can't be null, setCount just interned it
+        if (bounceCount > 0) {
+            if (bounceCount > bounces.getInt(key))
+                bounces.put(key, bounceCount);
+            block(key, gameTime + getBackoff(bounces.getInt(key)));
+        } else if (!retryAfter.containsKey(key)) {
+            enqueue(key);
+        }
+    }
+
+    /**
+     * Take up to @param count of @param stack out
+     *
+     * @return what was removed
+     */
+    public ItemStack remove(ItemStack stack, int count) {
+        ItemStack removed = items.removeStack(stack, count);
+        if (!removed.isEmpty() && items.getCount(stack) == 0)
+            bounces.removeInt(ItemStackKey.find(stack)); //Any still travelling carry their own count, and bring it back if they bounce again
+        return removed;
+    }
+
+    /**
+     * @return how many times the @param stack stored here has bounced off full destinations, 0 if it never has
+     */
+    public int getBounces(ItemStack stack) {
+        ItemStackKey key = ItemStackKey.find(stack);
+        return key == null ? 0 : bounces.getInt(key);
+    }
+
+    /**
+     * @return how many kinds of item have bounced often enough to be quarantined
+     */
+    public int getQuarantinedCount() {
+        int threshold = Config.LOST_STACK_QUARANTINE_BOUNCES.get();
+        int count = 0;
+        for (Object2IntMap.Entry<ItemStackKey> entry : bounces.object2IntEntrySet()) {
+            if (entry.getIntValue() >= threshold)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return how long to hold back items that have bounced @param bounceCount times - the base backoff, doubled for each bounce after the first
+     */
+    public static long getBackoff(int bounceCount) {
+        long backoff = (long) Config.LOST_STACK_BACKOFF_TICKS.get() << Math.min(Math.max(bounceCount - 1, 0), 30);
+        return Math.min(backoff, Config.LOST_STACK_MAX_BACKOFF_TICKS.get());
+    }
+
+    /**
+     * Items left the inventory at @param pos, so it may have room for something that was blocked
+     */
+    public void onCapacityChanged(BlockPos pos) {
+        if (!retryAfter.isEmpty())
+            freedDestinations.add(pos);
+    }
+
+    /**
+     * The network's cards or nodes changed, so anything blocked might have somewhere to go now
+     */
+    public void wakeAll() {
+        if (!retryAfter.isEmpty())
+            wakeAll = true;
+    }
+
+    /**
+     * Try to send out up to @param budget kinds of item, each as many as will fit, at @param gameTime
+     *
+     * @return if anything left the buffer
+     */
+    public boolean drain(long gameTime, int budget) {
+        wakeBlocked(gameTime);
+        boolean moved = false;
+        for (int i = 0; i < budget && !readyQueue.isEmpty(); i++) {
+            ItemStackKey key = readyQueue.poll();
+            queued.remove(key);
+            if (retryAfter.containsKey(key)) continue; //Bounced since it was queued, wakeBlocked will bring it back
+            ItemStack stack = items.getStack(key);
+            if (stack.isEmpty()) continue; //Already gone
+            int amt = stack.getCount();
+            int remaining = controller.extractItemFromPos(stack, controller.getPos(), -1);
+            if (remaining < amt)
+                moved = true;
+            if (remaining == 0) continue;
+            if (remaining < amt)
+                enqueue(key); //Some of it went, the rest may fit next time round
+            else
+                block(key, gameTime + Config.CONTROLLER_BUFFER_RETRY_TICKS.get());
+        }
+        return moved;
+    }
+
+    private void enqueue(ItemStackKey key) {
+        if (queued.add(key))
+            readyQueue.add(key);
+    }
+
+    private void block(ItemStackKey key, long until) {
+        if (retryAfter.containsKey(key))
+            until = Math.max(until, retryAfter.getLong(key));
+        retryAfter.put(key, until);
+        nextRetry = Math.min(nextRetry, until);
+    }
+
+    /**
+     * Move blocked kinds whose retry time has passed, or that could go somewhere with new room, back into the ready queue.
+     * Only looks through them at all when one of those things could have happened.
+     */
+    private void wakeBlocked(long gameTime) {
+        if (retryAfter.isEmpty() || (!wakeAll && freedDestinations.isEmpty() && gameTime < nextRetry)) {
+            freedDestinations.clear();
+            return;
+        }
+        long next = Long.MAX_VALUE;
+        ObjectIterator<Object2LongMap.Entry<ItemStackKey>> iterator = retryAfter.object2LongEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            Object2LongMap.Entry<ItemStackKey> entry = iterator.next();
+            ItemStackKey key = entry.getKey();
+            if (wakeAll || entry.getLongValue() <= gameTime || canGoToFreed(key)) {
+                iterator.remove();
+                if (!items.getStack(key).isEmpty())
+                    enqueue(key);
+            } else {
+                next = Math.min(next, entry.getLongValue());
+            }
+        }
+        nextRetry = next;
+        freedDestinations.clear();
+        wakeAll = false;
+    }
+
+    private boolean canGoToFreed(ItemStackKey key) {
+        if (freedDestinations.isEmpty()) return false;
+        if (bounces.getInt(key) > 0) return false; //Room opening up is what made it bounce in the first place, so it waits out its backoff
+        ItemStack stack = items.getStack(key);
+        if (stack.isEmpty()) return true; //Let it be cleaned up
+        for (BlockPos pos : controller.findDestinationForItemstack(stack)) {
+            if (freedDestinations.contains(pos))
+                return true;
+        }
+        return false;
+    }
+}
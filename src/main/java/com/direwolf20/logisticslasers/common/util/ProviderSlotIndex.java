@@ -0,0 +1,93 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntLists;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.Ingredient;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.items.IItemHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Which slots of each provider's inventory hold which items, so extracting an item only has to look at the slots that have it.
+ * Built the first time a provider is extracted from, and thrown away when items are put into it or something outside the network
+ * changes it. Taking items out doesn't need a rebuild: the slots for an item can only empty, so the lists are still a superset, and
+ * ItemHandlerUtil.extractItem checks each slot still holds the item anyway.
+ */
+public class ProviderSlotIndex {
+    private final HashMap<BlockPos, Entry> entries = new HashMap<>();
+
+    private static class Entry {
+        private final IItemHandler handler;
+        private final HashMap<ItemStackKey, IntArrayList> slots = new HashMap<>();
+        private final HashMap<ItemStackKey, ItemStack> prototypes = new HashMap<>(); //A stack from the first slot holding each key, for ingredient tests
+        private final HashMap<Ingredient, IntList> ingredientSlots = new HashMap<>(); //Memoized - each key is only tested against an ingredient once
+
+        private Entry(IItemHandler handler) {
+            this.handler = handler;
+            for (int slot = 0; slot < handler.getSlots(); slot++) {
+                ItemStack stack = handler.getStackInSlot(slot);
+                if (stack.isEmpty()) continue;
+                ItemStackKey key = ItemStackKey.of(stack);
+                IntArrayList keySlots = slots.get(key);
+                if (keySlots == null) {
+                    keySlots = new IntArrayList(1);
+                    slots.put(key, keySlots);
+                    prototypes.put(key, ItemHandlerUtil.size(stack, 1));
+                }
+                keySlots.add(slot);
+            }
+        }
+    }
+
+    /**
+     * @return the slots of @param handler, the provider at @param pos, that held @param stack when we last looked - in slot order
+     */
+    public IntList getSlots(BlockPos pos, IItemHandler handler, ItemStack stack) {
+        Entry entry = getEntry(pos, handler); //First, as building it interns the keys of everything in the inventory
+        ItemStackKey key = ItemStackKey.find(stack);
+        if (key == null) return IntLists.EMPTY_LIST; //Never seen anywhere, so it can't be in the index
+        IntArrayList slots = entry.slots.get(key);
+        return slots == null ? IntLists.EMPTY_LIST : slots;
+    }
+
+    /**
+     * @return the slots of @param handler, the provider at @param pos, that held something matching @param ingredient when we last looked - in slot order
+     */
+    public IntList getIngredientSlots(BlockPos pos, IItemHandler handler, Ingredient ingredient) {
+        Entry entry = getEntry(pos, handler);
+        IntList cached = entry.ingredientSlots.get(ingredient);
+        if (cached != null) return cached;
+        IntArrayList matching = new IntArrayList();
+        for (Map.Entry<ItemStackKey, IntArrayList> keySlots : entry.slots.entrySet()) {
+            if (ingredient.test(entry.prototypes.get(keySlots.getKey())))
+                matching.addAll(keySlots.getValue());
+        }
+        matching.sort(null);
+        entry.ingredientSlots.put(ingredient, matching);
+        return matching;
+    }
+
+    /**
+     * Items were put into, or otherwise changed in, the inventory at @param pos
+     */
+    public void invalidate(BlockPos pos) {
+        entries.remove(pos);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private Entry getEntry(BlockPos pos, IItemHandler handler) {
+        Entry entry = entries.get(pos);
+        if (entry == null || entry.handler != handler) {
+            entry = new Entry(handler);
+            entries.put(pos, entry);
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,87 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import com.direwolf20.logisticslasers.Config;
+import net.minecraft.inventory.CraftingInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.ICraftingRecipe;
+import net.minecraft.item.crafting.IRecipeType;
+import net.minecraft.item.crafting.RecipeManager;
+import net.minecraft.world.World;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Remembers which crafting recipe each 3x3 grid of items makes, for every crafting station on the server, as looking a recipe up means
+ * testing every crafting recipe in the game - thousands of them in a big modpack.
+ * Grids are keyed by the item and nbt in each slot, counts don't matter to a recipe. Grids that make nothing are remembered too.
+ * Only the most recently used grids are kept, and everything is forgotten when recipes are reloaded, or if a different recipe manager
+ * (a different world) asks. Server thread only.
+ */
+public class RecipeCache {
+    private static final Map<GridKey, Optional<ICraftingRecipe>> CACHE = new LinkedHashMap<GridKey, Optional<ICraftingRecipe>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GridKey, Optional<ICraftingRecipe>> eldest) {
+            return size() > Config.RECIPE_CACHE_SIZE.get();
+        }
+    };
+    private static RecipeManager cachedManager; //The recipe manager everything in the cache came from
+
+    private static class GridKey {
+        private final ItemStackKey[] slots;
+        private final int hash;
+
+        private GridKey(CraftingInventory matrix) {
+            slots = new ItemStackKey[matrix.getSizeInventory()];
+            for (int i = 0; i < slots.length; i++) {
+                ItemStack stack = matrix.getStackInSlot(i);
+                slots[i] = stack.isEmpty() ? null : ItemStackKey.of(stack); //Interned, so equal slots are the same key
+            }
+            hash = Arrays.hashCode(slots);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof GridKey && Arrays.equals(slots, ((GridKey) obj).slots);
+        }
+    }
+
+    /**
+     * @return the crafting recipe the items in @param matrix make in @param world, or null if they don't make anything
+     */
+    @Nullable
+    public static ICraftingRecipe getRecipe(CraftingInventory matrix, World world) {
+        if (world.getServer() == null) return null;
+        RecipeManager manager = world.getServer().getRecipeManager();
+        if (manager != cachedManager) {
+            CACHE.clear();
+            cachedManager = manager;
+        }
+        if (Config.RECIPE_CACHE_SIZE.get() <= 0)
+            return manager.getRecipe(IRecipeType.CRAFTING, matrix, world).orElse(null);
+
+        GridKey key = new GridKey(matrix);
+        Optional<ICraftingRecipe> recipe = CACHE.get(key);
+        if (recipe == null) {
+            recipe = manager.getRecipe(IRecipeType.CRAFTING, matrix, world);
+            CACHE.put(key, recipe);
+        }
+        return recipe.orElse(null);
+    }
+
+    /**
+     * Recipes or tags were reloaded, so anything we remember could be wrong
+     */
+    public static void clear() {
+        CACHE.clear();
+        cachedManager = null;
+    }
+}
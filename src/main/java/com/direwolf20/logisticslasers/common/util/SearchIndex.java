@@ -0,0 +1,197 @@
+package com.direwolf20.logisticslasers.common.util;
+
+import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+
+import java.util.*;
+
+/**
+ * A prefix index over the words in names, mod ids and tag ids, built once and then searched as often as needed.
+ * Search terms match the start of any word - "ing" finds "Iron Ingot" - and every term must match.
+ * A term starting with @ searches mod ids and one starting with # searches tag ids (whole ids like #forge:ingots/iron work too),
+ * anything else searches names.
+ */
+public class SearchIndex<T> {
+    private static final int MAX_DEPTH = 64; //Longer terms are cut to this length, which can only ever find a few extra results
+
+    private enum Field {
+        NAME,
+        MOD,
+        TAG
+    }
+
+    private final List<T> entries = new ArrayList<>();
+    private final Node[] roots = {new Node(), new Node(), new Node()};
+
+    /**
+     * One letter of a trie - holds the ids of every entry with a word starting with the letters that lead here, in ascending order
+     */
+    private static class Node {
+        private Char2ObjectOpenHashMap<Node> children;
+        private final IntArrayList ids = new IntArrayList(1);
+    }
+
+    /**
+     * Add @param value to the index, findable by the words in its @param name, its @param modId and its @param tags
+     */
+    public void add(T value, String name, String modId, Collection<ResourceLocation> tags) {
+        int id = entries.size();
+        entries.add(value);
+        for (String token : tokenize(name))
+            insert(roots[Field.NAME.ordinal()], token, id);
+        for (String token : tokenize(modId))
+            insert(roots[Field.MOD.ordinal()], token, id);
+        for (ResourceLocation tag : tags) {
+            insert(roots[Field.TAG.ordinal()], tag.toString(), id);
+            insert(roots[Field.TAG.ordinal()], tag.getPath(), id);
+            for (String token : tokenize(tag.toString()))
+                insert(roots[Field.TAG.ordinal()], token, id);
+        }
+    }
+
+    private void insert(Node root, String token, int id) {
+        Node node = root;
+        for (int i = 0; i < token.length() && i < MAX_DEPTH; i++) {
+            if (node.children == null)
+                node.children = new Char2ObjectOpenHashMap<>(2);
+            node = node.children.computeIfAbsent(token.charAt(i), c -> new Node());
+            int size = node.ids.size();
+            if (size == 0 || node.ids.getInt(size - 1) != id) //Ids are added in order, so this is all it takes to keep them unique
+                node.ids.add(id);
+        }
+    }
+
+    /**
+     * @return every entry matching all the terms in @param query, in the order they were added
+     */
+    public List<T> search(String query) {
+        IntArrayList result = null;
+        for (String term : getTerms(query)) {
+            Field field = getField(term);
+            String prefix = field == Field.NAME ? term : term.substring(1);
+            if (prefix.isEmpty()) continue; //A lone @ or # matches everything
+            IntArrayList ids = find(roots[field.ordinal()], prefix);
+            result = result == null ? ids : intersect(result, ids);
+            if (result.isEmpty()) return Collections.emptyList();
+        }
+        if (result == null) return new ArrayList<>(entries);
+        List<T> values = new ArrayList<>(result.size());
+        for (int i = 0; i < result.size(); i++)
+            values.add(entries.get(result.getInt(i)));
+        return values;
+    }
+
+    private static IntArrayList find(Node root, String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && i < MAX_DEPTH; i++) {
+            if (node.children == null) return new IntArrayList();
+            node = node.children.get(prefix.charAt(i));
+            if (node == null) return new IntArrayList();
+        }
+        return node.ids;
+    }
+
+    private static IntArrayList intersect(IntArrayList a, IntArrayList b) {
+        IntArrayList result = new IntArrayList(Math.min(a.size(), b.size()));
+        int i = 0, j = 0;
+        while (i < a.size() && j < b.size()) {
+            int x = a.getInt(i), y = b.getInt(j);
+            if (x == y) {
+                result.add(x);
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return a search index over @param stacks by display name, mod id and item tags
+     */
+    public static SearchIndex<ItemStack> forItems(Collection<ItemStack> stacks) {
+        SearchIndex<ItemStack> index = new SearchIndex<>();
+        for (ItemStack stack : stacks) {
+            index.add(stack, stack.getDisplayName().getString(), stack.getItem().getCreatorModId(stack), stack.getItem().getTags());
+        }
+        return index;
+    }
+
+    /**
+     * Checks a single @param stack against the @param terms of a search, with the same rules as the index.
+     * Cheaper than building an index when there's only going to be one search.
+     */
+    public static boolean matches(ItemStack stack, String[] terms) {
+        List<String> nameTokens = null;
+        for (String term : terms) {
+            Field field = getField(term);
+            String prefix = field == Field.NAME ? term : term.substring(1);
+            if (prefix.isEmpty()) continue;
+            switch (field) {
+                case MOD:
+                    if (!anyStartsWith(tokenize(stack.getItem().getCreatorModId(stack)), prefix)) return false;
+                    break;
+                case TAG:
+                    boolean found = false;
+                    for (ResourceLocation tag : stack.getItem().getTags()) {
+                        if (tag.toString().startsWith(prefix) || tag.getPath().startsWith(prefix) || anyStartsWith(tokenize(tag.toString()), prefix)) {
+                            found = true;
+                            break;
+                        }
+                    }
+                    if (!found) return false;
+                    break;
+                default:
+                    if (nameTokens == null)
+                        nameTokens = tokenize(stack.getDisplayName().getString());
+                    if (!anyStartsWith(nameTokens, prefix)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean anyStartsWith(List<String> tokens, String prefix) {
+        if (prefix.length() > MAX_DEPTH)
+            prefix = prefix.substring(0, MAX_DEPTH);
+        for (String token : tokens) {
+            if (token.startsWith(prefix))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the lowercase search terms in @param query
+     */
+    public static String[] getTerms(String query) {
+        String trimmed = query.trim().toLowerCase(Locale.ROOT);
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+    }
+
+    private static Field getField(String term) {
+        if (term.startsWith("@")) return Field.MOD;
+        if (term.startsWith("#")) return Field.TAG;
+        return Field.NAME;
+    }
+
+    /**
+     * @return the lowercase words in @param text, split on anything that isn't a letter or digit
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty())
+                tokens.add(token);
+        }
+        return tokens;
+    }
+}